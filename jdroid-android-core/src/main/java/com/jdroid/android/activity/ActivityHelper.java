@@ -77,6 +77,13 @@ public class ActivityHelper implements ActivityIf {
 	private NavDrawer navDrawer;
 
 	private Map<AppModule, ActivityDelegate> activityDelegatesMap;
+	// Modules without delegate, so they are not asked again on each lookup
+	private Set<AppModule> modulesWithoutDelegate;
+	// Lifecycle state of the delegates, so the ones created later can catch up
+	private Bundle delegatesSavedInstanceState;
+	private boolean delegatesCreated = false;
+	private boolean started = false;
+	private boolean resumed = false;
 
 	private GoogleApiClient googleApiClient;
 	private Action appIndexingAction;
@@ -144,11 +151,22 @@ public class ActivityHelper implements ActivityIf {
 
 		verifyGooglePlayServicesAvailability();
 
+		AbstractApplication.get().getAppModuleRegistry().onActivityCreated(activity);
+		if (savedInstanceState == null) {
+			// The uri is handled after the delegates are created, so its trigger is fired here
+			Uri uri = UriUtils.getUri(activity.getIntent());
+			if (uri != null) {
+				AbstractApplication.get().getAppModuleRegistry().onUriOpened(uri);
+			}
+		}
 		activityDelegatesMap = Maps.newHashMap();
-		for (AppModule appModule : AbstractApplication.get().getAppModules()) {
+		modulesWithoutDelegate = Sets.newHashSet();
+		for (AppModule appModule : AbstractApplication.get().getCreatedAppModules()) {
 			ActivityDelegate activityDelegate = getActivityIf().createActivityDelegate(appModule);
 			if (activityDelegate != null) {
 				activityDelegatesMap.put(appModule, activityDelegate);
+			} else {
+				modulesWithoutDelegate.add(appModule);
 			}
 		}
 
@@ -225,6 +243,8 @@ public class ActivityHelper implements ActivityIf {
 		for (ActivityDelegate each : activityDelegatesMap.values()) {
 			each.onCreate(savedInstanceState);
 		}
+		delegatesSavedInstanceState = savedInstanceState;
+		delegatesCreated = true;
 
 		if (savedInstanceState == null) {
 			trackNotificationOpened(activity.getIntent());
@@ -346,6 +366,7 @@ public class ActivityHelper implements ActivityIf {
 		for (ActivityDelegate each : activityDelegatesMap.values()) {
 			each.onStart();
 		}
+		started = true;
 
 		if (uriHandler != null && isGooglePlayServicesAvailable) {
 			if (appIndexingAction == null) {
@@ -373,6 +394,7 @@ public class ActivityHelper implements ActivityIf {
 		for (ActivityDelegate each : activityDelegatesMap.values()) {
 			each.onResume();
 		}
+		resumed = true;
 
 		if (navDrawer != null) {
 			navDrawer.onResume();
@@ -391,7 +413,7 @@ public class ActivityHelper implements ActivityIf {
 		}
 		if (oldIsGooglePlayServicesAvailable != null && !oldIsGooglePlayServicesAvailable && isGooglePlayServicesAvailable) {
 			LOGGER.info("Google Play Services updated");
-			for (AppModule appModule : AbstractApplication.get().getAppModules()) {
+			for (AppModule appModule : AbstractApplication.get().getCreatedAppModules()) {
 				appModule.onGooglePlayServicesUpdated();
 			}
 		}
@@ -409,6 +431,7 @@ public class ActivityHelper implements ActivityIf {
 		
 		AbstractApplication.get().getCoreAnalyticsSender().onActivityPause(activity);
 		
+		resumed = false;
 		for (ActivityDelegate each : activityDelegatesMap.values()) {
 			each.onPause();
 		}
@@ -431,6 +454,7 @@ public class ActivityHelper implements ActivityIf {
 			locationHandler.removeCallbacksAndMessages(null);
 		}
 
+		started = false;
 		for (ActivityDelegate each : activityDelegatesMap.values()) {
 			each.onStop();
 		}
@@ -585,8 +609,30 @@ public class ActivityHelper implements ActivityIf {
 		return appModule.createActivityDelegate(activity);
 	}
 
+	/**
+	 * @return the delegate of the module, or null if the module doesn't have one. The delegate of a module created after
+	 * this activity is created on demand, and brought to the current lifecycle state of the activity.
+	 */
 	public ActivityDelegate getActivityDelegate(AppModule appModule) {
-		return activityDelegatesMap.get(appModule);
+		ActivityDelegate activityDelegate = activityDelegatesMap.get(appModule);
+		if (activityDelegate == null && !isDestroyed && !modulesWithoutDelegate.contains(appModule)) {
+			activityDelegate = getActivityIf().createActivityDelegate(appModule);
+			if (activityDelegate == null) {
+				modulesWithoutDelegate.add(appModule);
+			} else {
+				activityDelegatesMap.put(appModule, activityDelegate);
+				if (delegatesCreated) {
+					activityDelegate.onCreate(delegatesSavedInstanceState);
+				}
+				if (started) {
+					activityDelegate.onStart();
+				}
+				if (resumed) {
+					activityDelegate.onResume();
+				}
+			}
+		}
+		return activityDelegate;
 	}
 
 	// //////////////////////// Loading //////////////////////// //
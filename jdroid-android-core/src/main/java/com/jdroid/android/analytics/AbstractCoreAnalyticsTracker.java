@@ -6,19 +6,15 @@ import android.os.Bundle;
 import android.support.annotation.NonNull;
 
 import com.jdroid.android.social.SocialAction;
-import com.jdroid.java.concurrent.LowPriorityThreadFactory;
 
 import java.util.List;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 public abstract class AbstractCoreAnalyticsTracker implements CoreAnalyticsTracker {
 
-	private Executor executor = Executors.newSingleThreadExecutor(new LowPriorityThreadFactory("analytics"));
-
 	@Override
 	public Executor getExecutor() {
-		return executor;
+		return AnalyticsDispatcher.get();
 	}
 
 	@Override
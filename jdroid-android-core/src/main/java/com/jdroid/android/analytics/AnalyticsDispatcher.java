@@ -0,0 +1,88 @@
+package com.jdroid.android.analytics;
+
+import android.support.annotation.NonNull;
+
+import com.jdroid.java.concurrent.LowPriorityThreadFactory;
+import com.jdroid.java.utils.LoggerUtils;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single low priority dispatch loop shared by all the analytics trackers. The tasks are enqueued on a lock-free queue,
+ * and the loop thread is only woken up when it is idle, so a burst of events is dispatched on a single wake-up.
+ */
+public class AnalyticsDispatcher implements Executor {
+
+	private static final Logger LOGGER = LoggerUtils.getLogger(AnalyticsDispatcher.class);
+
+	private static final AnalyticsDispatcher INSTANCE = new AnalyticsDispatcher();
+
+	private ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+	private AtomicBoolean drainScheduled = new AtomicBoolean(false);
+	private ExecutorService loopExecutor = Executors.newSingleThreadExecutor(new LowPriorityThreadFactory("analytics"));
+
+	private AtomicLong dispatchedCount = new AtomicLong();
+	private AtomicLong wakeUpsCount = new AtomicLong();
+
+	private Runnable drainRunnable = new Runnable() {
+
+		@Override
+		public void run() {
+			drain();
+		}
+	};
+
+	public static AnalyticsDispatcher get() {
+		return INSTANCE;
+	}
+
+	private AnalyticsDispatcher() {
+	}
+
+	@Override
+	public void execute(@NonNull Runnable runnable) {
+		queue.offer(runnable);
+		if (drainScheduled.compareAndSet(false, true)) {
+			wakeUpsCount.incrementAndGet();
+			loopExecutor.execute(drainRunnable);
+		}
+	}
+
+	private void drain() {
+		while (true) {
+			Runnable runnable;
+			while ((runnable = queue.poll()) != null) {
+				try {
+					runnable.run();
+				} catch (Exception e) {
+					LOGGER.error("Error dispatching analytics", e);
+				}
+				dispatchedCount.incrementAndGet();
+			}
+			drainScheduled.set(false);
+
+			// Keep draining if a task was enqueued after the queue was found empty and nobody scheduled a new drain
+			if (queue.isEmpty() || !drainScheduled.compareAndSet(false, true)) {
+				break;
+			}
+		}
+	}
+
+	public long getDispatchedCount() {
+		return dispatchedCount.get();
+	}
+
+	/**
+	 * @return the amount of times the loop thread was woken up. Each wake-up dispatches all the enqueued tasks.
+	 */
+	public long getWakeUpsCount() {
+		return wakeUpsCount.get();
+	}
+}
@@ -7,11 +7,16 @@ import android.support.annotation.NonNull;
 
 import com.jdroid.android.social.SocialAction;
 import com.jdroid.java.analytics.AnalyticsSender;
+import com.jdroid.java.analytics.AnalyticsTracker;
+import com.jdroid.java.collections.Lists;
 import com.jdroid.java.utils.LoggerUtils;
 
 import org.slf4j.Logger;
 
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * 
@@ -21,13 +26,22 @@ public class CoreAnalyticsSender<T extends CoreAnalyticsTracker> extends Analyti
 	
 	private static final Logger LOGGER = LoggerUtils.getLogger(CoreAnalyticsSender.class);
 	
+	private static final int MAX_POOLED_EVENTS = 32;
+	
+	private List<T> trackers;
+	
+	// Recycled lifecycle events, so the activity and fragment transitions don't allocate tracking commands
+	private ConcurrentLinkedQueue<LifecycleEvent> eventsPool = new ConcurrentLinkedQueue<>();
+	private AtomicInteger pooledEventsCount = new AtomicInteger();
+	
 	@SafeVarargs
 	public CoreAnalyticsSender(T... trackers) {
-		super(trackers);
+		this(Lists.newArrayList(trackers));
 	}
 	
 	public CoreAnalyticsSender(List<T> trackers) {
 		super(trackers);
+		this.trackers = trackers;
 	}
 	
 	@Override
@@ -53,91 +67,44 @@ public class CoreAnalyticsSender<T extends CoreAnalyticsTracker> extends Analyti
 	}
 	
 	@Override
-	public void onFirstActivityCreate(final Activity activity) {
-		execute(new TrackingCommand() {
-
-			@Override
-			protected void track(T tracker) {
-				tracker.onFirstActivityCreate(activity);
-			}
-		});
+	public void onFirstActivityCreate(Activity activity) {
+		dispatch(LifecycleEventType.FIRST_ACTIVITY_CREATE, activity, null, null, null, null);
 	}
 
 	@Override
-	public void onActivityCreate(final Activity activity, final Bundle savedInstanceState) {
-		execute(new TrackingCommand() {
-
-			@Override
-			protected void track(T tracker) {
-				tracker.onActivityCreate(activity, savedInstanceState);
-			}
-		});
+	public void onActivityCreate(Activity activity, Bundle savedInstanceState) {
+		dispatch(LifecycleEventType.ACTIVITY_CREATE, activity, savedInstanceState, null, null, null);
 	}
 
 	@Override
-	public void onActivityStart(final Activity activity, final String referrer,
-			final Object data) {
-		execute(new TrackingCommand() {
-			
-			@Override
-			protected void track(T tracker) {
-				tracker.onActivityStart(activity, referrer, data);
-			}
-		});
+	public void onActivityStart(Activity activity, String referrer,
+			Object data) {
+		dispatch(LifecycleEventType.ACTIVITY_START, activity, null, referrer, data, null);
 	}
 	
 	@Override
-	public void onActivityResume(final Activity activity) {
-		execute(new TrackingCommand() {
-			@Override
-			protected void track(T tracker) {
-				tracker.onActivityResume(activity);
-			}
-		});
+	public void onActivityResume(Activity activity) {
+		dispatch(LifecycleEventType.ACTIVITY_RESUME, activity, null, null, null, null);
 	}
 
 	@Override
-	public void onActivityPause(final Activity activity) {
-		execute(new TrackingCommand() {
-			
-			@Override
-			protected void track(T tracker) {
-				tracker.onActivityPause(activity);
-			}
-		});
+	public void onActivityPause(Activity activity) {
+		dispatch(LifecycleEventType.ACTIVITY_PAUSE, activity, null, null, null, null);
 	}
 	
 	@Override
-	public void onActivityStop(final Activity activity) {
-		execute(new TrackingCommand() {
-			
-			@Override
-			protected void track(T tracker) {
-				tracker.onActivityStop(activity);
-			}
-		});
+	public void onActivityStop(Activity activity) {
+		dispatch(LifecycleEventType.ACTIVITY_STOP, activity, null, null, null, null);
 	}
 	
 	@Override
-	public void onActivityDestroy(final Activity activity) {
-		execute(new TrackingCommand() {
-			
-			@Override
-			protected void track(T tracker) {
-				tracker.onActivityDestroy(activity);
-			}
-		});
+	public void onActivityDestroy(Activity activity) {
+		dispatch(LifecycleEventType.ACTIVITY_DESTROY, activity, null, null, null, null);
 	}
 	
 	@Override
-	public void onFragmentStart(final String screenViewName) {
-		execute(new TrackingCommand() {
-			
-			@Override
-			protected void track(T tracker) {
-				tracker.onFragmentStart(screenViewName);
-			}
-		});
+	public void onFragmentStart(String screenViewName) {
+		dispatch(LifecycleEventType.FRAGMENT_START, null, null, null, null, screenViewName);
 	}
 
 	@Override
@@ -274,4 +241,137 @@ public class CoreAnalyticsSender<T extends CoreAnalyticsTracker> extends Analyti
 			}
 		});
 	}
+
+	private void dispatch(LifecycleEventType type, Activity activity, Bundle savedInstanceState, String referrer,
+			Object data, String screenViewName) {
+		LifecycleEvent event = eventsPool.poll();
+		if (event != null) {
+			pooledEventsCount.decrementAndGet();
+		} else {
+			event = new LifecycleEvent();
+		}
+		event.type = type;
+		event.activity = activity;
+		event.savedInstanceState = savedInstanceState;
+		event.referrer = referrer;
+		event.data = data;
+		event.screenViewName = screenViewName;
+		AnalyticsDispatcher.get().execute(event);
+	}
+	
+	private void recycle(LifecycleEvent event) {
+		event.type = null;
+		event.activity = null;
+		event.savedInstanceState = null;
+		event.referrer = null;
+		event.data = null;
+		event.screenViewName = null;
+		if (pooledEventsCount.incrementAndGet() <= MAX_POOLED_EVENTS) {
+			eventsPool.offer(event);
+		} else {
+			pooledEventsCount.decrementAndGet();
+		}
+	}
+	
+	private enum LifecycleEventType {
+		FIRST_ACTIVITY_CREATE,
+		ACTIVITY_CREATE,
+		ACTIVITY_START,
+		ACTIVITY_RESUME,
+		ACTIVITY_PAUSE,
+		ACTIVITY_STOP,
+		ACTIVITY_DESTROY,
+		FRAGMENT_START
+	}
+	
+	/**
+	 * Lifecycle event, fanned out to all the enabled trackers. The trackers running on the {@link AnalyticsDispatcher}
+	 * are tracked inline, and the rest are handed to their own {@link AnalyticsTracker#getExecutor()}. The event is
+	 * recycled once every tracker is done with it.
+	 */
+	private class LifecycleEvent implements Runnable {
+		
+		private LifecycleEventType type;
+		private Activity activity;
+		private Bundle savedInstanceState;
+		private String referrer;
+		private Object data;
+		private String screenViewName;
+		private AtomicInteger pendingTrackersCount = new AtomicInteger();
+		
+		@Override
+		public void run() {
+			pendingTrackersCount.set(1);
+			try {
+				Executor dispatcher = AnalyticsDispatcher.get();
+				for (int i = 0; i < trackers.size(); i++) {
+					final T tracker = trackers.get(i);
+					Executor executor = tracker.getExecutor();
+					if (executor == null || executor == dispatcher) {
+						safeTrack(tracker);
+					} else {
+						pendingTrackersCount.incrementAndGet();
+						executor.execute(new Runnable() {
+							
+							@Override
+							public void run() {
+								try {
+									safeTrack(tracker);
+								} finally {
+									release();
+								}
+							}
+						});
+					}
+				}
+			} finally {
+				release();
+			}
+		}
+		
+		private void release() {
+			if (pendingTrackersCount.decrementAndGet() == 0) {
+				recycle(this);
+			}
+		}
+		
+		private void safeTrack(T tracker) {
+			try {
+				if (tracker.isEnabled()) {
+					track(tracker);
+				}
+			} catch (Exception e) {
+				LOGGER.error("Error tracking " + type + " on " + tracker.getClass().getSimpleName(), e);
+			}
+		}
+		
+		private void track(T tracker) {
+			switch (type) {
+				case FIRST_ACTIVITY_CREATE:
+					tracker.onFirstActivityCreate(activity);
+					break;
+				case ACTIVITY_CREATE:
+					tracker.onActivityCreate(activity, savedInstanceState);
+					break;
+				case ACTIVITY_START:
+					tracker.onActivityStart(activity, referrer, data);
+					break;
+				case ACTIVITY_RESUME:
+					tracker.onActivityResume(activity);
+					break;
+				case ACTIVITY_PAUSE:
+					tracker.onActivityPause(activity);
+					break;
+				case ACTIVITY_STOP:
+					tracker.onActivityStop(activity);
+					break;
+				case ACTIVITY_DESTROY:
+					tracker.onActivityDestroy(activity);
+					break;
+				case FRAGMENT_START:
+					tracker.onFragmentStart(screenViewName);
+					break;
+			}
+		}
+	}
 }
@@ -3,19 +3,41 @@ package com.jdroid.android.api;
 import com.jdroid.android.application.AbstractApplication;
 import com.jdroid.android.debug.http.HttpDebugConfiguration;
 import com.jdroid.android.http.HttpConfiguration;
+import com.jdroid.android.http.cache.CacheManager;
+import com.jdroid.android.http.cache.ResponseMemoryCache;
+import com.jdroid.java.http.HttpService;
 import com.jdroid.java.http.HttpServiceFactory;
 import com.jdroid.java.http.Server;
 import com.jdroid.java.http.api.AbstractApiService;
 import com.jdroid.java.http.cache.Cache;
 import com.jdroid.java.http.mock.AbstractMockHttpService;
+import com.jdroid.java.http.parser.Parser;
 
 import java.io.File;
+import java.util.Map;
 
 public abstract class AndroidApiService extends AbstractApiService {
 
 	@Override
 	protected File getHttpCacheDirectory(Cache cache) {
-		return AbstractApplication.get().getCacheManager().getFileSystemCacheDirectory(cache);
+		CacheManager cacheManager = AbstractApplication.get().getCacheManager();
+		// The file system cache is read directly, so its pending default content should be available
+		cacheManager.extractDefaultContent(cache);
+		return cacheManager.getFileSystemCacheDirectory(cache);
+	}
+
+	/**
+	 * Executes the service using the memory and file system tiers of the given cache.
+	 *
+	 * @param httpService the service to execute when the response is not cached
+	 * @param parser the parser of the response
+	 * @param cache the cache
+	 * @param cacheKey the key of the response. See {@link ResponseMemoryCache#buildKey(String, Map)}
+	 * @param <T> the parsed response type
+	 * @return the parsed response. It is shared with the other callers of the same key, so it must not be modified.
+	 */
+	protected <T> T executeCached(HttpService httpService, Parser parser, Cache cache, String cacheKey) {
+		return AbstractApplication.get().getCacheManager().executeCached(cache, cacheKey, httpService, parser);
 	}
 	
 	@Override
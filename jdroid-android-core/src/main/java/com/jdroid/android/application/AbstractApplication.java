@@ -3,6 +3,7 @@ package com.jdroid.android.application;
 import android.app.Activity;
 import android.app.ActivityManager;
 import android.app.Application;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.pm.ApplicationInfo;
 import android.content.res.Configuration;
@@ -22,14 +23,18 @@ import com.jdroid.android.analytics.CoreAnalyticsSender;
 import com.jdroid.android.analytics.CoreAnalyticsTracker;
 import com.jdroid.android.context.AndroidGitContext;
 import com.jdroid.android.context.AppContext;
+import com.jdroid.android.context.UsageStats;
 import com.jdroid.android.debug.DebugContext;
 import com.jdroid.android.exception.DefaultExceptionHandler;
 import com.jdroid.android.exception.ExceptionHandler;
 import com.jdroid.android.firebase.testlab.FirebaseTestLab;
 import com.jdroid.android.fragment.FragmentHelper;
 import com.jdroid.android.http.cache.CacheManager;
+import com.jdroid.android.images.BitmapLruCache;
 import com.jdroid.android.leakcanary.LeakCanaryHelper;
 import com.jdroid.android.lifecycle.ApplicationLifecycleHelper;
+import com.jdroid.android.lifecycle.StartupPhase;
+import com.jdroid.android.lifecycle.StartupTracer;
 import com.jdroid.android.notification.NotificationChannelType;
 import com.jdroid.android.notification.NotificationUtils;
 import com.jdroid.android.repository.UserRepository;
@@ -86,7 +91,7 @@ public abstract class AbstractApplication extends Application {
 	
 	private Map<Class<? extends Identifiable>, Repository<? extends Identifiable>> repositories;
 
-	private Map<String, AppModule> appModulesMap = Maps.newLinkedHashMap();
+	private AppModuleRegistry appModuleRegistry = new AppModuleRegistry();
 
 	private UpdateManager updateManager;
 	private CacheManager cacheManager;
@@ -120,12 +125,15 @@ public abstract class AbstractApplication extends Application {
 	protected final void attachBaseContext(Context base) {
 		super.attachBaseContext(base);
 		
+		StartupPhase phase = StartupTracer.begin("attachBaseContext");
+		
 		onInitMultiDex();
 		
 		if (!isMultiProcessSupportEnabled() || ProcessUtils.isMainProcess(this)) {
 			initLogging();
 			ApplicationLifecycleHelper.attachBaseContext(this);
 			onMainProcessAttachBaseContext();
+			phase.end();
 		} else {
 			onSecondaryProcessAttachBaseContext(ProcessUtils.getProcessInfo(this));
 		}
@@ -163,17 +171,29 @@ public abstract class AbstractApplication extends Application {
 		super.onCreate();
 		
 		if (!isMultiProcessSupportEnabled() || ProcessUtils.isMainProcess(this)) {
+			StartupPhase onCreatePhase = StartupTracer.begin("onCreate");
+			StartupTracer.registerActivityLifecycleCallbacks(this);
+			
+			SharedPreferencesHelper.warmUp(getWarmUpSharedPreferencesNames());
+			
 			ApplicationLifecycleHelper.onCreate(this);
 			
 			appContext = createAppContext();
 			
 			NotificationUtils.createNotificationChannelsByType(getNotificationChannelTypes());
 	
+			StartupPhase phase = StartupTracer.begin("initAppModule");
+			Map<String, AppModule> appModulesMap = Maps.newLinkedHashMap();
 			initAppModule(appModulesMap);
+			for (Map.Entry<String, AppModule> entry : appModulesMap.entrySet()) {
+				appModuleRegistry.register(entry.getKey(), entry.getValue());
+			}
+			initAppModuleRegistry(appModuleRegistry);
+			phase.end();
 			
+			phase = StartupTracer.begin("initCoreAnalyticsSender");
 			initCoreAnalyticsSender();
-			
-			uriMapper = createUriMapper();
+			phase.end();
 			
 			updateManager = new UpdateManager();
 			updateManager.addUpdateSteps(createUpdateSteps());
@@ -185,7 +205,9 @@ public abstract class AbstractApplication extends Application {
 			ToastUtils.init();
 			DateUtils.init();
 			
+			phase = StartupTracer.begin("initRepositories");
 			initRepositories();
+			phase.end();
 			
 			ExecutorUtils.execute(new Runnable() {
 				
@@ -205,6 +227,8 @@ public abstract class AbstractApplication extends Application {
 			registerActivityLifecycleCallbacks(activityLifecycleHandler);
 			
 			onMainProcessCreate();
+			
+			onCreatePhase.end();
 		} else  {
 			onSecondaryProcessCreate(ProcessUtils.getProcessInfo(this));
 		}
@@ -236,6 +260,21 @@ public abstract class AbstractApplication extends Application {
 	protected void initAppModule(Map<String, AppModule> appModulesMap) {
 		// Do nothing
 	}
+	
+	/**
+	 * @return the names of the shared preferences files to load on worker threads while the application is created. A
+	 * null name means the default shared preferences.
+	 */
+	protected List<String> getWarmUpSharedPreferencesNames() {
+		return Lists.newArrayList(UsageStats.USAGE_STATS);
+	}
+	
+	/**
+	 * Registers the modules which should only be created on their first lookup or when one of their triggers fires.
+	 */
+	protected void initAppModuleRegistry(AppModuleRegistry appModuleRegistry) {
+		// Do nothing
+	}
 
 	@MainThread
 	@CallSuper
@@ -267,6 +306,8 @@ public abstract class AbstractApplication extends Application {
 	public final void onLowMemory() {
 		super.onLowMemory();
 		
+		BitmapLruCache.trimAll(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+		
 		if (!isMultiProcessSupportEnabled() || ProcessUtils.isMainProcess(this)) {
 			ApplicationLifecycleHelper.onLowMemory(this);
 			onMainProcessLowMemory();
@@ -291,6 +332,8 @@ public abstract class AbstractApplication extends Application {
 	public final void onTrimMemory(int level) {
 		super.onTrimMemory(level);
 		
+		BitmapLruCache.trimAll(level);
+		
 		if (!isMultiProcessSupportEnabled() || ProcessUtils.isMainProcess(this)) {
 			onMainProcessTrimMemory();
 		} else  {
@@ -437,7 +480,10 @@ public abstract class AbstractApplication extends Application {
 	}
 
 	@NonNull
-	public UriMapper getUriMapper() {
+	public synchronized UriMapper getUriMapper() {
+		if (uriMapper == null) {
+			uriMapper = createUriMapper();
+		}
 		return uriMapper;
 	}
 
@@ -502,7 +548,7 @@ public abstract class AbstractApplication extends Application {
 		initRepositories(repositories);
 		
 		if (isDatabaseEnabled()) {
-			SQLiteHelper dbHelper = new SQLiteHelper(this);
+			SQLiteHelper dbHelper = createSQLiteHelper();
 			getDebugContext().initDebugRepositories(repositories, dbHelper);
 			initDatabaseRepositories(repositories, dbHelper);
 			dbHelper.addUpgradeSteps(getSQLiteUpgradeSteps());
@@ -522,6 +568,16 @@ public abstract class AbstractApplication extends Application {
 		return false;
 	}
 	
+	/**
+	 * Creates the {@link SQLiteHelper} used by the database repositories. Override it to tune the database settings,
+	 * like the write-ahead logging or the cache size.
+	 * 
+	 * @return the helper
+	 */
+	protected SQLiteHelper createSQLiteHelper() {
+		return new SQLiteHelper(this);
+	}
+	
 	protected List<SQLiteUpgradeStep> getSQLiteUpgradeSteps() {
 		return Lists.newArrayList();
 	}
@@ -539,12 +595,26 @@ public abstract class AbstractApplication extends Application {
 		return appLaunchStatus;
 	}
 
+	/**
+	 * @return all the modules, creating the lazy ones not created yet
+	 */
 	public List<AppModule> getAppModules() {
-		return Lists.newArrayList(appModulesMap.values());
+		return appModuleRegistry.getAll();
+	}
+	
+	/**
+	 * @return the modules already created
+	 */
+	public List<AppModule> getCreatedAppModules() {
+		return appModuleRegistry.getCreated();
 	}
 
 	public AppModule getAppModule(String appModuleName) {
-		return appModulesMap.get(appModuleName);
+		return appModuleRegistry.get(appModuleName);
+	}
+	
+	public AppModuleRegistry getAppModuleRegistry() {
+		return appModuleRegistry;
 	}
 	
 	public abstract int getLauncherIconResId();
@@ -554,7 +624,7 @@ public abstract class AbstractApplication extends Application {
 	public abstract String getManifestPackageName();
 
 	public void addAppModulesMap(String name, AppModule appModule) {
-		this.appModulesMap.put(name, appModule);
+		appModuleRegistry.register(name, appModule);
 	}
 
 	@MainThread
@@ -0,0 +1,12 @@
+package com.jdroid.android.application;
+
+/**
+ * Creates a lazily registered {@link AppModule}. The module is usually created on the main thread, but a lookup or a
+ * job trigger can create it on a worker thread, so the creation should be thread-safe and must not require the main
+ * thread. {@link AppModuleRegistry} guarantees that it is created only once.
+ */
+public interface AppModuleFactory {
+	
+	public AppModule createAppModule();
+	
+}
@@ -0,0 +1,218 @@
+package com.jdroid.android.application;
+
+import android.app.Activity;
+import android.net.Uri;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.jdroid.java.collections.Lists;
+import com.jdroid.java.collections.Maps;
+import com.jdroid.java.utils.LoggerUtils;
+
+import org.slf4j.Logger;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Registry of the {@link AppModule}s of the application. The modules can be registered already created, or through a
+ * {@link AppModuleFactory}, so they are only created on the first lookup or when one of their triggers fires: the
+ * creation of an activity, the opening of a uri or the execution of a background job.
+ *
+ * The modules which are not created are not notified about the application events, so a module which needs to be
+ * notified on every activity (for example, to add ads on each screen) should not be registered lazily.
+ */
+public class AppModuleRegistry {
+
+	private static final Logger LOGGER = LoggerUtils.getLogger(AppModuleRegistry.class);
+
+	private LinkedHashMap<String, Registration> registrations = Maps.newLinkedHashMap();
+	private Set<String> touchedAppModuleNames = Collections.synchronizedSet(new LinkedHashSet<String>());
+
+	/**
+	 * Registers an already created module.
+	 */
+	public synchronized void register(@NonNull String name, @NonNull AppModule appModule) {
+		Registration registration = new Registration(name, null);
+		registration.appModule = appModule;
+		registrations.put(name, registration);
+	}
+
+	/**
+	 * Registers a module which is created on the first lookup or when one of its triggers fires.
+	 *
+	 * @return the registration, where the triggers can be declared
+	 */
+	public synchronized Registration register(@NonNull String name, @NonNull AppModuleFactory appModuleFactory) {
+		Registration registration = new Registration(name, appModuleFactory);
+		registrations.put(name, registration);
+		return registration;
+	}
+
+	/**
+	 * @return the module with the given name, creating it if required, or null if it is not registered
+	 */
+	@Nullable
+	public AppModule get(String name) {
+		Registration registration;
+		synchronized (this) {
+			registration = registrations.get(name);
+		}
+		if (registration != null) {
+			touchedAppModuleNames.add(name);
+			return registration.getAppModule("lookup");
+		}
+		return null;
+	}
+
+	/**
+	 * @return all the registered modules. The not created ones are created, so this should only be used when all the
+	 * modules must be notified, for example about a new instance id token.
+	 */
+	@NonNull
+	public List<AppModule> getAll() {
+		List<AppModule> appModules = Lists.newArrayList();
+		for (Registration each : getRegistrations()) {
+			touchedAppModuleNames.add(each.name);
+			appModules.add(each.getAppModule("lookup"));
+		}
+		return appModules;
+	}
+
+	/**
+	 * @return the modules already created, without creating the rest
+	 */
+	@NonNull
+	public List<AppModule> getCreated() {
+		List<AppModule> appModules = Lists.newArrayList();
+		for (Registration each : getRegistrations()) {
+			AppModule appModule = each.appModule;
+			if (appModule != null) {
+				appModules.add(appModule);
+			}
+		}
+		return appModules;
+	}
+
+	public void onActivityCreated(@NonNull Activity activity) {
+		for (Registration each : getRegistrations()) {
+			for (Class<? extends Activity> activityClass : each.activityClasses) {
+				if (activityClass.isInstance(activity)) {
+					onTriggerFired(each, "activity " + activity.getClass().getSimpleName());
+					break;
+				}
+			}
+		}
+	}
+
+	public void onUriOpened(@NonNull Uri uri) {
+		String uriString = uri.toString();
+		for (Registration each : getRegistrations()) {
+			for (String uriPrefix : each.uriPrefixes) {
+				if (uriString.startsWith(uriPrefix)) {
+					onTriggerFired(each, "uri " + uriString);
+					break;
+				}
+			}
+		}
+	}
+
+	public void onJobStarted(@NonNull String tag) {
+		for (Registration each : getRegistrations()) {
+			if (each.jobTags.contains(tag)) {
+				onTriggerFired(each, "job " + tag);
+			}
+		}
+	}
+
+	private void onTriggerFired(Registration registration, String trigger) {
+		touchedAppModuleNames.add(registration.name);
+		registration.getAppModule(trigger);
+	}
+
+	private synchronized List<Registration> getRegistrations() {
+		return Lists.newArrayList(registrations.values());
+	}
+
+	/**
+	 * @return the names of the modules looked up or triggered during this session, in the order they were first touched
+	 */
+	@NonNull
+	public List<String> getTouchedAppModuleNames() {
+		synchronized (touchedAppModuleNames) {
+			return Lists.newArrayList(touchedAppModuleNames);
+		}
+	}
+
+	/**
+	 * @return the names of the registered modules which were not created during this session
+	 */
+	@NonNull
+	public List<String> getNotCreatedAppModuleNames() {
+		List<String> names = Lists.newArrayList();
+		for (Registration each : getRegistrations()) {
+			if (each.appModule == null) {
+				names.add(each.name);
+			}
+		}
+		return names;
+	}
+
+	public static class Registration {
+
+		private String name;
+		private AppModuleFactory appModuleFactory;
+		private volatile AppModule appModule;
+
+		private List<Class<? extends Activity>> activityClasses = Lists.newArrayList();
+		private List<String> uriPrefixes = Lists.newArrayList();
+		private List<String> jobTags = Lists.newArrayList();
+
+		private Registration(String name, AppModuleFactory appModuleFactory) {
+			this.name = name;
+			this.appModuleFactory = appModuleFactory;
+		}
+
+		/**
+		 * The module is created when an instance of the activity class is created.
+		 */
+		public Registration triggeredByActivity(@NonNull Class<? extends Activity> activityClass) {
+			activityClasses.add(activityClass);
+			return this;
+		}
+
+		/**
+		 * The module is created when a uri starting with the prefix is opened.
+		 */
+		public Registration triggeredByUri(@NonNull String uriPrefix) {
+			uriPrefixes.add(uriPrefix);
+			return this;
+		}
+
+		/**
+		 * The module is created when a job or worker service with the tag is executed. The job runs on a worker
+		 * thread, so the module is created on that thread.
+		 *
+		 * @see AppModuleFactory
+		 */
+		public Registration triggeredByJob(@NonNull String tag) {
+			jobTags.add(tag);
+			return this;
+		}
+
+		private AppModule getAppModule(String trigger) {
+			if (appModule == null) {
+				synchronized (this) {
+					if (appModule == null) {
+						LOGGER.debug("Creating app module " + name + " on " + trigger);
+						appModule = appModuleFactory.createAppModule();
+					}
+				}
+			}
+			return appModule;
+		}
+	}
+}
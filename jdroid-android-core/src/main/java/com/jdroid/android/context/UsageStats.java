@@ -9,7 +9,7 @@ import com.jdroid.java.date.DateUtils;
 
 public class UsageStats {
 
-	private static final String USAGE_STATS = "usageStats";
+	public static final String USAGE_STATS = "usageStats";
 	private static final String APP_LOADS = "appLoads";
 	private static final String FIRST_APP_LOAD_TIMESTAMP = "firstAppLoadTimestamp";
 	private static final String LAST_CRASH_TIMESTAMP = "lastCrashTimestamp";
@@ -35,11 +35,13 @@ public class UsageStats {
 		getSharedPreferencesHelper().savePreferenceAsync(APP_LOADS, appLoads + 1);
 	}
 	
-	// FIXME Find a way to call this method from UI thread
-	//@WorkerThread
+	/**
+	 * The usage stats are warmed up on a worker thread during the application creation, so this method only blocks if it
+	 * is called before the warm up finishes.
+	 */
 	public static Long getAppLoads() {
 		if (appLoads == null) {
-			appLoads = getSharedPreferencesHelper().loadPreferenceAsLong(APP_LOADS, 0L);
+			appLoads = getSharedPreferencesHelper().getSnapshot().getLong(APP_LOADS, 0L);
 		}
 		return appLoads;
 	}
@@ -5,23 +5,20 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
 import com.google.firebase.analytics.FirebaseAnalytics;
+import com.jdroid.android.analytics.AnalyticsDispatcher;
 import com.jdroid.android.application.AbstractApplication;
 import com.jdroid.android.context.BuildConfigUtils;
 import com.jdroid.android.firebase.testlab.FirebaseTestLab;
-import com.jdroid.java.concurrent.LowPriorityThreadFactory;
 import com.jdroid.java.utils.LoggerUtils;
 
 import org.slf4j.Logger;
 
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 public class FirebaseAnalyticsHelper {
 	
 	static final Logger LOGGER = LoggerUtils.getLogger(FirebaseAnalyticsHelper.class);
 	
-	private Executor executor = Executors.newSingleThreadExecutor(new LowPriorityThreadFactory("firebase-analytics"));
-	
 	private static final int EVENT_NAME_MAX_CHARS_LONG = 40;
 	
 	public void sendEvent(@NonNull String eventName, @Nullable FirebaseAnalyticsParams params) {
@@ -89,7 +86,7 @@ public class FirebaseAnalyticsHelper {
 	}
 	
 	public Executor getExecutor() {
-		return executor;
+		return AnalyticsDispatcher.get();
 	}
 	
 	/**
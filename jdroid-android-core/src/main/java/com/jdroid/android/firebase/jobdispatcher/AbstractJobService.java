@@ -29,6 +29,7 @@ public abstract class AbstractJobService extends JobService {
 				String tag = getClass().getSimpleName();
 				try {
 					tag = getTag(jobParameters);
+					AbstractApplication.get().getAppModuleRegistry().onJobStarted(tag);
 					if (timingTrackingEnabled()) {
 						trace = TraceHelper.startTrace(tag);
 					}
@@ -21,7 +21,9 @@ import com.jdroid.android.concurrent.SafeExecuteWrapperRunnable;
 import com.jdroid.android.exception.AbstractErrorDisplayer;
 import com.jdroid.android.exception.ErrorDisplayer;
 import com.jdroid.android.loading.FragmentLoading;
+import com.jdroid.android.usecase.UseCaseHelper;
 import com.jdroid.java.collections.Maps;
+import com.jdroid.java.collections.Sets;
 import com.jdroid.java.exception.AbstractException;
 import com.jdroid.java.utils.LoggerUtils;
 import com.squareup.leakcanary.LeakCanary;
@@ -29,6 +31,7 @@ import com.squareup.leakcanary.LeakCanary;
 import org.slf4j.Logger;
 
 import java.util.Map;
+import java.util.Set;
 
 public class FragmentHelper implements FragmentIf {
 	
@@ -37,6 +40,13 @@ public class FragmentHelper implements FragmentIf {
 	private Fragment fragment;
 
 	private Map<AppModule, FragmentDelegate> fragmentDelegatesMap;
+	// Modules without delegate, so they are not asked again on each lookup
+	private Set<AppModule> modulesWithoutDelegate;
+	// Lifecycle state of the delegates, so the ones created later can catch up
+	private Bundle delegatesSavedInstanceState;
+	private View delegatesView;
+	private boolean resumed = false;
+	private boolean isDestroyed = false;
 
 	private FragmentLoading loading;
 
@@ -104,13 +114,17 @@ public class FragmentHelper implements FragmentIf {
 		fragment.setRetainInstance(getFragmentIf().shouldRetainInstance());
 
 		fragmentDelegatesMap = Maps.newHashMap();
-		for (AppModule appModule : AbstractApplication.get().getAppModules()) {
+		modulesWithoutDelegate = Sets.newHashSet();
+		for (AppModule appModule : AbstractApplication.get().getCreatedAppModules()) {
 			FragmentDelegate fragmentDelegate = getFragmentIf().createFragmentDelegate(appModule);
 			if (fragmentDelegate != null) {
 				fragmentDelegatesMap.put(appModule, fragmentDelegate);
 				fragmentDelegate.onCreate(savedInstanceState);
+			} else {
+				modulesWithoutDelegate.add(appModule);
 			}
 		}
+		delegatesSavedInstanceState = savedInstanceState;
 	}
 
 	public void onNewIntent(Intent intent) {
@@ -164,6 +178,7 @@ public class FragmentHelper implements FragmentIf {
 		for (FragmentDelegate each : fragmentDelegatesMap.values()) {
 			each.onViewCreated(view, savedInstanceState);
 		}
+		delegatesView = view;
 
 		if (loading == null) {
 			loading = getFragmentIf().getDefaultLoading();
@@ -189,6 +204,7 @@ public class FragmentHelper implements FragmentIf {
 		for (FragmentDelegate each : fragmentDelegatesMap.values()) {
 			each.onResume();
 		}
+		resumed = true;
 	}
 
 	public void onBeforePause() {
@@ -199,6 +215,7 @@ public class FragmentHelper implements FragmentIf {
 
 	public void onPause() {
 		LOGGER.debug("Executing onPause on " + fragment);
+		resumed = false;
 	}
 
 	public void onStop() {
@@ -207,6 +224,7 @@ public class FragmentHelper implements FragmentIf {
 
 	public void onDestroyView() {
 		LOGGER.debug("Executing onDestroyView on " + fragment);
+		delegatesView = null;
 	}
 
 	public void onBeforeDestroy() {
@@ -217,6 +235,9 @@ public class FragmentHelper implements FragmentIf {
 
 	public void onDestroy() {
 		LOGGER.debug("Executing onDestroy on " + fragment);
+		isDestroyed = true;
+		
+		UseCaseHelper.cancelQueuedUseCases(fragment);
 		
 		LeakCanary.installedRefWatcher().watch(fragment);
 	}
@@ -348,9 +369,29 @@ public class FragmentHelper implements FragmentIf {
 		return appModule.createFragmentDelegate(fragment);
 	}
 
+	/**
+	 * @return the delegate of the module, or null if the module doesn't have one. The delegate of a module created after
+	 * this fragment is created on demand, and brought to the current lifecycle state of the fragment.
+	 */
 	@Override
 	public FragmentDelegate getFragmentDelegate(AppModule appModule) {
-		return fragmentDelegatesMap.get(appModule);
+		FragmentDelegate fragmentDelegate = fragmentDelegatesMap.get(appModule);
+		if (fragmentDelegate == null && !isDestroyed && !modulesWithoutDelegate.contains(appModule)) {
+			fragmentDelegate = getFragmentIf().createFragmentDelegate(appModule);
+			if (fragmentDelegate == null) {
+				modulesWithoutDelegate.add(appModule);
+			} else {
+				fragmentDelegatesMap.put(appModule, fragmentDelegate);
+				fragmentDelegate.onCreate(delegatesSavedInstanceState);
+				if (delegatesView != null) {
+					fragmentDelegate.onViewCreated(delegatesView, delegatesSavedInstanceState);
+				}
+				if (resumed) {
+					fragmentDelegate.onResume();
+				}
+			}
+		}
+		return fragmentDelegate;
 	}
 
 	// //////////////////////// Analytics //////////////////////// //
@@ -55,7 +55,7 @@ public abstract class UseCaseFragment<T extends AbstractUseCase> extends Abstrac
 	}
 	
 	public void executeUseCase() {
-		UseCaseHelper.executeUseCase(useCase);
+		UseCaseHelper.executeUseCase(useCase, this);
 	}
 
 	@Override
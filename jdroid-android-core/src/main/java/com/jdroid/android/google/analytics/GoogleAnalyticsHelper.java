@@ -3,10 +3,10 @@ package com.jdroid.android.google.analytics;
 import com.google.android.gms.analytics.GoogleAnalytics;
 import com.google.android.gms.analytics.HitBuilders;
 import com.google.android.gms.analytics.Tracker;
+import com.jdroid.android.analytics.AnalyticsDispatcher;
 import com.jdroid.android.application.AbstractApplication;
 import com.jdroid.android.context.UsageStats;
 import com.jdroid.java.collections.Maps;
-import com.jdroid.java.concurrent.LowPriorityThreadFactory;
 import com.jdroid.java.date.DateUtils;
 import com.jdroid.java.utils.LoggerUtils;
 
@@ -14,7 +14,6 @@ import org.slf4j.Logger;
 
 import java.util.Map;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 public class GoogleAnalyticsHelper {
@@ -30,8 +29,6 @@ public class GoogleAnalyticsHelper {
 
 	private Map<String, String> commonCustomDimensionsValues = Maps.newHashMap();
 
-	private Executor executor = Executors.newSingleThreadExecutor(new LowPriorityThreadFactory("google-analytics"));
-	
 	public synchronized Tracker getTracker() {
 		if (tracker == null) {
 			GoogleAnalytics analytics = GoogleAnalytics.getInstance(AbstractApplication.get());
@@ -241,6 +238,6 @@ public class GoogleAnalyticsHelper {
 	}
 
 	public Executor getExecutor() {
-		return executor;
+		return AnalyticsDispatcher.get();
 	}
 }
@@ -0,0 +1,330 @@
+package com.jdroid.android.http.cache;
+
+import com.jdroid.java.collections.Lists;
+import com.jdroid.java.collections.Sets;
+import com.jdroid.java.date.DateUtils;
+import com.jdroid.java.utils.FileUtils;
+import com.jdroid.java.utils.LoggerUtils;
+
+import org.slf4j.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Index of the files of a cache directory, with their sizes in access order. Every change is appended to a journal
+ * file, so the index can be restored on the next launch without a stat of each cached file.
+ */
+public class CacheJournal {
+
+	private static final Logger LOGGER = LoggerUtils.getLogger(CacheJournal.class);
+
+	static final String JOURNAL_FILE_NAME = ".journal";
+	static final String TEMP_FILE_SUFFIX = ".tmp";
+
+	// The temporary files not modified during this time are leftovers of interrupted writes
+	private static final long STALE_TEMP_FILE_AGE = TimeUnit.HOURS.toMillis(1);
+
+	private static final String WRITE = "W";
+	private static final String READ = "R";
+	private static final String DELETE = "D";
+
+	private static final int MIN_REDUNDANT_OPERATIONS_TO_COMPACT = 2000;
+
+	private File directory;
+	private File journalFile;
+
+	// Entry sizes in bytes by file name, ordered from the least to the most recently used
+	private LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long totalSize = 0;
+	private int redundantOperationsCount = 0;
+	private Writer journalWriter;
+	private boolean loaded = false;
+
+	public CacheJournal(File directory) {
+		this.directory = directory;
+		journalFile = new File(directory, JOURNAL_FILE_NAME);
+	}
+
+	/**
+	 * Loads the index from the journal if it was not loaded yet. Each public method invokes it, so the index of each cache
+	 * is loaded on its first use, without blocking the other caches.
+	 */
+	private void ensureLoaded() {
+		if (loaded) {
+			return;
+		}
+		loaded = true;
+		if (journalFile.exists()) {
+			replayJournal();
+			reconcile();
+		} else {
+			rebuild();
+		}
+	}
+
+	private void replayJournal() {
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new FileReader(journalFile));
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] parts = line.split(" ");
+				if (parts.length == 3 && WRITE.equals(parts[0])) {
+					putEntry(parts[1], Long.parseLong(parts[2]));
+				} else if (parts.length == 2 && READ.equals(parts[0])) {
+					entries.get(parts[1]);
+					redundantOperationsCount++;
+				} else if (parts.length == 2 && DELETE.equals(parts[0])) {
+					removeEntry(parts[1]);
+					redundantOperationsCount++;
+				}
+			}
+		} catch (IOException | NumberFormatException e) {
+			LOGGER.warn("Corrupted cache journal on " + directory.getName() + ". Rebuilding it.");
+			entries.clear();
+			totalSize = 0;
+		} finally {
+			FileUtils.safeClose(reader);
+		}
+	}
+
+	/**
+	 * Adopts the files written without being journaled, and forgets the deleted ones. Only the names are listed, and just
+	 * the new files are inspected.
+	 */
+	private void reconcile() {
+		String[] names = directory.list();
+		if (names == null) {
+			return;
+		}
+		Set<String> missingNames = Sets.newHashSet(entries.keySet());
+		List<File> newFiles = Lists.newArrayList();
+		for (String name : names) {
+			if (!missingNames.remove(name) && !isJournalFile(name)) {
+				File file = new File(directory, name);
+				if (isTempFile(name)) {
+					deleteIfStale(file);
+				} else {
+					newFiles.add(file);
+				}
+			}
+		}
+		for (String name : missingNames) {
+			removeEntry(name);
+		}
+		addFiles(newFiles);
+		if (!missingNames.isEmpty() || !newFiles.isEmpty() || redundantOperationsCount > 0) {
+			compact();
+		}
+	}
+
+	/**
+	 * Creates the index inspecting all the files of the directory. This is only needed the first time the journal is used.
+	 */
+	private void rebuild() {
+		entries.clear();
+		totalSize = 0;
+		List<File> files = Lists.newArrayList();
+		File[] directoryFiles = directory.listFiles();
+		if (directoryFiles != null) {
+			for (File file : directoryFiles) {
+				if (isTempFile(file.getName())) {
+					deleteIfStale(file);
+				} else if (!isJournalFile(file.getName())) {
+					files.add(file);
+				}
+			}
+		}
+		addFiles(files);
+		compact();
+	}
+
+	static boolean isJournalFile(String name) {
+		return name.startsWith(JOURNAL_FILE_NAME);
+	}
+
+	/**
+	 * The files are written to a temporary file and renamed when complete, so the temporary files are never part of the
+	 * cache.
+	 */
+	static boolean isTempFile(String name) {
+		return name.endsWith(TEMP_FILE_SUFFIX);
+	}
+
+	private void deleteIfStale(File file) {
+		if (DateUtils.nowMillis() - file.lastModified() > STALE_TEMP_FILE_AGE) {
+			FileUtils.forceDelete(file);
+		}
+	}
+
+	private void addFiles(List<File> files) {
+		final Map<File, Long> lastModifiedByFile = new LinkedHashMap<>();
+		for (File file : files) {
+			lastModifiedByFile.put(file, file.lastModified());
+		}
+		Collections.sort(files, new Comparator<File>() {
+
+			@Override
+			public int compare(File file1, File file2) {
+				return lastModifiedByFile.get(file1).compareTo(lastModifiedByFile.get(file2));
+			}
+		});
+		for (File file : files) {
+			putEntry(file.getName(), file.length());
+		}
+	}
+
+	private void putEntry(String name, long size) {
+		Long previousSize = entries.put(name, size);
+		if (previousSize != null) {
+			totalSize -= previousSize;
+			redundantOperationsCount++;
+		}
+		totalSize += size;
+	}
+
+	private void removeEntry(String name) {
+		Long size = entries.remove(name);
+		if (size != null) {
+			totalSize -= size;
+		}
+	}
+
+	/**
+	 * @param name the name of the written file
+	 * @param size the size of the written file, in bytes
+	 */
+	public synchronized void onWritten(String name, long size) {
+		ensureLoaded();
+		putEntry(name, size);
+		appendToJournal(WRITE + " " + name + " " + size);
+	}
+
+	/**
+	 * Marks the file as the most recently used one.
+	 *
+	 * @param name the name of the read file
+	 */
+	public synchronized void onRead(String name) {
+		ensureLoaded();
+		if (entries.get(name) != null) {
+			redundantOperationsCount++;
+			appendToJournal(READ + " " + name);
+		}
+	}
+
+	/**
+	 * @param name the name of the deleted file
+	 */
+	public synchronized void onDeleted(String name) {
+		ensureLoaded();
+		if (entries.containsKey(name)) {
+			removeEntry(name);
+			redundantOperationsCount++;
+			appendToJournal(DELETE + " " + name);
+		}
+	}
+
+	/**
+	 * @return the size of all the cached files, in bytes
+	 */
+	public synchronized long getTotalSize() {
+		ensureLoaded();
+		return totalSize;
+	}
+
+	public synchronized int getEntriesCount() {
+		ensureLoaded();
+		return entries.size();
+	}
+
+	/**
+	 * Deletes the least recently used files until the total size is not greater than the target size.
+	 *
+	 * @param targetSize the size to reach, in bytes
+	 * @return the amount of deleted files
+	 */
+	public synchronized int trimToSize(long targetSize) {
+		ensureLoaded();
+		int deletedCount = 0;
+		Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+		while (totalSize > targetSize && iterator.hasNext()) {
+			Map.Entry<String, Long> entry = iterator.next();
+			FileUtils.forceDelete(new File(directory, entry.getKey()));
+			totalSize -= entry.getValue();
+			iterator.remove();
+			redundantOperationsCount++;
+			appendToJournal(DELETE + " " + entry.getKey());
+			deletedCount++;
+		}
+		if (deletedCount > 0) {
+			compactIfNeeded();
+		}
+		return deletedCount;
+	}
+
+	private void appendToJournal(String line) {
+		try {
+			if (journalWriter == null) {
+				journalWriter = new BufferedWriter(new FileWriter(journalFile, true));
+			}
+			journalWriter.write(line);
+			journalWriter.write('\n');
+			journalWriter.flush();
+		} catch (IOException e) {
+			LOGGER.warn("Error writing the cache journal on " + directory.getName(), e);
+			close();
+		}
+		compactIfNeeded();
+	}
+
+	private void compactIfNeeded() {
+		if (redundantOperationsCount >= MIN_REDUNDANT_OPERATIONS_TO_COMPACT && redundantOperationsCount >= entries.size()) {
+			compact();
+		}
+	}
+
+	/**
+	 * Rewrites the journal with a single line per entry, in access order.
+	 */
+	private void compact() {
+		close();
+		File tempFile = new File(directory, JOURNAL_FILE_NAME + TEMP_FILE_SUFFIX);
+		Writer writer = null;
+		try {
+			writer = new BufferedWriter(new FileWriter(tempFile, false));
+			for (Map.Entry<String, Long> entry : entries.entrySet()) {
+				writer.write(WRITE + " " + entry.getKey() + " " + entry.getValue() + "\n");
+			}
+			writer.close();
+			writer = null;
+			if (!tempFile.renameTo(journalFile)) {
+				LOGGER.warn("Error renaming the cache journal on " + directory.getName());
+			}
+			redundantOperationsCount = 0;
+		} catch (IOException e) {
+			LOGGER.warn("Error compacting the cache journal on " + directory.getName(), e);
+		} finally {
+			FileUtils.safeClose(writer);
+		}
+	}
+
+	public synchronized void close() {
+		FileUtils.safeClose(journalWriter);
+		journalWriter = null;
+	}
+}
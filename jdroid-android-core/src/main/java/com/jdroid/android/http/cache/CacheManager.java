@@ -4,21 +4,37 @@ import android.content.Context;
 import android.support.annotation.WorkerThread;
 
 import com.jdroid.android.application.AbstractApplication;
-import com.jdroid.android.application.AppLaunchStatus;
+import com.jdroid.android.utils.AppUtils;
 import com.jdroid.java.collections.Lists;
+import com.jdroid.java.collections.Maps;
+import com.jdroid.java.concurrent.LowPriorityThreadFactory;
+import com.jdroid.java.date.DateUtils;
+import com.jdroid.java.http.HttpService;
 import com.jdroid.java.http.cache.Cache;
 import com.jdroid.java.http.cache.CachedHttpService;
+import com.jdroid.java.http.parser.Parser;
 import com.jdroid.java.utils.FileUtils;
 import com.jdroid.java.utils.LoggerUtils;
 
 import org.slf4j.Logger;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class CacheManager {
 
@@ -26,6 +42,20 @@ public class CacheManager {
 
 	private static final String CACHE_DIRECTORY_PREFIX = "cache_";
 
+	private static final long BYTES_PER_MB = 1024 * 1024;
+
+	private static final long TRANSFER_CHUNK_SIZE = 64 * 1024;
+
+	private Map<String, CacheJournal> cacheJournals = Maps.newHashMap();
+	private ResponseMemoryCache responseMemoryCache;
+
+	// Time to live of the files, in milliseconds, by cache name
+	private Map<String, Long> diskTimeToLives = new ConcurrentHashMap<>();
+
+	// Default content not extracted yet, by cache name and cache key
+	private Map<String, Map<String, String>> pendingDefaultContent = new ConcurrentHashMap<>();
+	private Long defaultContentTime;
+
 	@WorkerThread
 	public void initFileSystemCache() {
 		try {
@@ -40,72 +70,308 @@ public class CacheManager {
 				}
 			});
 
-			for (Cache cache : caches) {
-				populateFileSystemCache(cache);
-				reduceFileSystemCache(cache);
+			if (caches.isEmpty()) {
+				return;
+			}
+
+			// Each cache is initialized in parallel. The tasks are started in priority order
+			List<Callable<Void>> tasks = Lists.newArrayList();
+			for (final Cache cache : caches) {
+				tasks.add(new Callable<Void>() {
+
+					@Override
+					public Void call() {
+						try {
+							populateFileSystemCache(cache);
+							reduceFileSystemCache(cache);
+						} catch (Exception e) {
+							AbstractApplication.get().getExceptionHandler().logHandledException(e);
+						}
+						return null;
+					}
+				});
+			}
+			int threadsCount = Math.min(caches.size(), Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+			ExecutorService executorService = Executors.newFixedThreadPool(threadsCount, new LowPriorityThreadFactory("cache-init"));
+			try {
+				executorService.invokeAll(tasks);
+			} finally {
+				executorService.shutdown();
 			}
 		} catch (Exception e) {
 			AbstractApplication.get().getExceptionHandler().logHandledException(e);
 		}
 	}
 
-	@SuppressWarnings("resource")
+	/**
+	 * Registers the default content of the cache, to be extracted on the first use of each key. The content is
+	 * registered on every launch, because nothing is extracted in advance: each key is only extracted if its file is
+	 * missing, or if it is older than the installed version of the application.
+	 *
+	 * @param cache the cache
+	 */
 	public void populateFileSystemCache(Cache cache) {
 
-		if (!AbstractApplication.get().getAppLaunchStatus().equals(AppLaunchStatus.NORMAL)) {
+		Map<String, String> defaultContent = cache.getDefaultContent();
+
+		if ((defaultContent != null) && !defaultContent.isEmpty()) {
+			Map<String, String> pendingContent = new ConcurrentHashMap<>();
+			for (Map.Entry<String, String> entry : defaultContent.entrySet()) {
+				// By cache key
+				pendingContent.put(entry.getValue(), entry.getKey());
+			}
+			pendingDefaultContent.put(cache.getName(), pendingContent);
+			LOGGER.debug(cache.getName() + " cache default content registered");
+		}
+	}
 
-			Map<String, String> defaultContent = cache.getDefaultContent();
+	/**
+	 * Extracts all the pending default content of the cache.
+	 *
+	 * @param cache the cache
+	 */
+	public void extractDefaultContent(Cache cache) {
+		Map<String, String> pendingContent = pendingDefaultContent.get(cache.getName());
+		if (pendingContent != null) {
+			for (String key : Lists.newArrayList(pendingContent.keySet())) {
+				extractDefaultContent(cache, key);
+			}
+			pendingDefaultContent.remove(cache.getName());
+		}
+	}
 
-			if ((defaultContent != null) && !defaultContent.isEmpty()) {
-				for (Map.Entry<String, String> entry : defaultContent.entrySet()) {
-					InputStream source = AbstractApplication.class.getClassLoader().getResourceAsStream(
-							"cache/" + entry.getKey());
-					if (source != null) {
-						File cacheFile = new File(getFileSystemCacheDirectory(cache),
-								CachedHttpService.generateCacheFileName(entry.getValue()));
-						FileUtils.copyStream(source, cacheFile);
-						LOGGER.debug("Populated " + entry.toString() + " to " + cacheFile.getAbsolutePath());
+	/**
+	 * Extracts the default content of the key, if it is pending.
+	 *
+	 * @param cache the cache
+	 * @param key the cache key
+	 */
+	public void extractDefaultContent(Cache cache, String key) {
+		Map<String, String> pendingContent = pendingDefaultContent.get(cache.getName());
+		if (pendingContent != null) {
+			String resourceName = pendingContent.remove(key);
+			if (resourceName != null) {
+				File cacheFile = getFileSystemCacheFile(cache, key);
+				// The files written after the installation of the current version are newer than the default content
+				if (cacheFile.exists() && cacheFile.lastModified() >= getDefaultContentTime()) {
+					return;
+				}
+				InputStream source = AbstractApplication.class.getClassLoader().getResourceAsStream("cache/" + resourceName);
+				if (source != null) {
+					try {
+						transfer(source, cacheFile);
+						onCacheFileWritten(cache, cacheFile);
+						LOGGER.debug("Populated " + resourceName + " to " + cacheFile.getAbsolutePath());
+					} catch (IOException e) {
+						AbstractApplication.get().getExceptionHandler().logHandledException(e);
+					} finally {
 						FileUtils.safeClose(source);
 					}
 				}
-				LOGGER.debug(cache.getName() + " cache populated");
 			}
 		}
 	}
 
+	/**
+	 * @return the time when the installed version of the application, and its default content, was installed
+	 */
+	private synchronized long getDefaultContentTime() {
+		if (defaultContentTime == null) {
+			defaultContentTime = AppUtils.getPackageInfo().lastUpdateTime;
+		}
+		return defaultContentTime;
+	}
+
+	/**
+	 * Transfers the stream to the file through channels, without intermediate byte arrays on the heap.
+	 */
+	private void transfer(InputStream source, File file) throws IOException {
+		File tempFile = new File(file.getParentFile(), file.getName() + CacheJournal.TEMP_FILE_SUFFIX);
+		ReadableByteChannel sourceChannel = Channels.newChannel(source);
+		FileOutputStream outputStream = new FileOutputStream(tempFile);
+		try {
+			FileChannel fileChannel = outputStream.getChannel();
+			long position = 0;
+			long transferred;
+			while ((transferred = fileChannel.transferFrom(sourceChannel, position, TRANSFER_CHUNK_SIZE)) > 0) {
+				position += transferred;
+			}
+		} finally {
+			FileUtils.safeClose(outputStream);
+		}
+		if (!tempFile.renameTo(file)) {
+			FileUtils.forceDelete(tempFile);
+			throw new IOException("Error renaming " + tempFile.getAbsolutePath());
+		}
+	}
+
 	public void reduceFileSystemCache(Cache cache) {
 		if (cache.getMaximumSize() != null) {
-			File dir = getFileSystemCacheDirectory(cache);
+			CacheJournal cacheJournal = getCacheJournal(cache);
+			long size = cacheJournal.getTotalSize();
+			LOGGER.info("Cache " + cache.getName() + " size: " + ((float)size / BYTES_PER_MB) + " MB");
 
 			// Verify if the cache should be clean
-			if ((dir != null) && dir.exists()) {
-				float dirSize = FileUtils.getDirectorySizeInMB(dir);
-				LOGGER.info("Cache " + cache.getName() + " size: " + dirSize + " MB");
-				if (dirSize > cache.getMaximumSize()) {
-					// Sort the files by modification date, so we remove the not used files first
-					List<File> files = Lists.newArrayList(dir.listFiles());
-					Collections.sort(files, new Comparator<File>() {
-
-						@Override
-						public int compare(File file1, File file2) {
-							return Long.valueOf(file1.lastModified()).compareTo(file2.lastModified());
-						}
-					});
-
-					// Remove the file until the minimum size is achieved
-					for (File file : files) {
-						if (dirSize > cache.getMinimumSize()) {
-							dirSize -= FileUtils.getFileSizeInMB(file);
-							FileUtils.forceDelete(file);
-						} else {
-							break;
-						}
-					}
-				}
+			if (size > cache.getMaximumSize().floatValue() * BYTES_PER_MB) {
+				// Remove the least recently used files until the minimum size is achieved
+				long minimumSize = cache.getMinimumSize() != null ? (long)(cache.getMinimumSize().floatValue() * BYTES_PER_MB) : 0;
+				int deletedCount = cacheJournal.trimToSize(minimumSize);
+				LOGGER.info("Cache " + cache.getName() + " reduced. " + deletedCount + " files deleted");
 			}
 		}
 	}
 
+	/**
+	 * Returns the index of the files of the cache, loading it if needed.
+	 *
+	 * @param cache the cache
+	 * @return the index of the cache
+	 */
+	public synchronized CacheJournal getCacheJournal(Cache cache) {
+		CacheJournal cacheJournal = cacheJournals.get(cache.getName());
+		if (cacheJournal == null) {
+			cacheJournal = new CacheJournal(getFileSystemCacheDirectory(cache));
+			cacheJournals.put(cache.getName(), cacheJournal);
+		}
+		return cacheJournal;
+	}
+
+	/**
+	 * Should be invoked each time a file is stored on the cache, so its size is accounted.
+	 *
+	 * @param cache the cache
+	 * @param file the stored file
+	 */
+	public void onCacheFileWritten(Cache cache, File file) {
+		getCacheJournal(cache).onWritten(file.getName(), file.length());
+	}
+
+	/**
+	 * Should be invoked each time a file is read from the cache, so it is the last one to be evicted.
+	 *
+	 * @param cache the cache
+	 * @param file the read file
+	 */
+	public void onCacheFileRead(Cache cache, File file) {
+		getCacheJournal(cache).onRead(file.getName());
+	}
+
+	/**
+	 * Returns the response of the request, looking for it first on memory, then on the file system, and finally
+	 * executing the request. The raw content of the response is stored on the file system, and the parsed response on
+	 * memory. A file which can't be parsed is deleted, and the request is executed.
+	 * The same parsed instance is returned to all the callers while it is kept on memory, so it must not be modified.
+	 *
+	 * @param cache the cache
+	 * @param key the key of the response. It should include the url and the headers which change the response.
+	 * @param httpService the service to execute when the response is not cached
+	 * @param parser the parser of the response
+	 * @param <T> the parsed response type
+	 * @return the parsed response, shared with the other callers. It must not be modified.
+	 */
+	@SuppressWarnings("unchecked")
+	@WorkerThread
+	public <T> T executeCached(Cache cache, String key, HttpService httpService, Parser parser) {
+		ResponseMemoryCache memoryCache = getResponseMemoryCache();
+		ResponseCacheStats stats = memoryCache.getStats(cache);
+		Object response = memoryCache.get(cache, key);
+		if (response != null) {
+			stats.onMemoryHit();
+			return (T)response;
+		}
+		stats.onMemoryMiss();
+
+		extractDefaultContent(cache, key);
+		File cacheFile = getFileSystemCacheFile(cache, key);
+		if (cacheFile.exists() && !isExpired(cache, cacheFile)) {
+			InputStream inputStream = null;
+			try {
+				inputStream = new FileInputStream(cacheFile);
+				response = parser.parse(inputStream);
+				stats.onDiskHit();
+				onCacheFileRead(cache, cacheFile);
+			} catch (FileNotFoundException e) {
+				// The file was evicted after the exists check
+				response = null;
+			} catch (RuntimeException e) {
+				// The file is corrupt, so it is treated as a miss
+				AbstractApplication.get().getExceptionHandler().logHandledException(e);
+				response = null;
+			} finally {
+				FileUtils.safeClose(inputStream);
+			}
+			if (response == null && cacheFile.exists()) {
+				FileUtils.forceDelete(cacheFile);
+				getCacheJournal(cache).onDeleted(cacheFile.getName());
+			}
+		}
+
+		if (response == null) {
+			stats.onDiskMiss();
+			response = httpService.execute(new FileSystemCacheParser(cache, cacheFile, parser));
+		}
+		memoryCache.put(cache, key, response, (int)cacheFile.length());
+		return (T)response;
+	}
+
+	/**
+	 * Sets how long the files of the cache can be read since they were written. It is independent of the time to live
+	 * of the parsed responses on memory.
+	 *
+	 * @param cache the cache
+	 * @param timeToLive the time to live in milliseconds, or null to read the files regardless of their age
+	 */
+	public void setDiskTimeToLive(Cache cache, Long timeToLive) {
+		if (timeToLive != null) {
+			diskTimeToLives.put(cache.getName(), timeToLive);
+		} else {
+			diskTimeToLives.remove(cache.getName());
+		}
+	}
+
+	/**
+	 * @param cache the cache
+	 * @return the time to live of the files of the cache in milliseconds, or null if they don't expire. By default they
+	 * don't expire, and they are only removed when the cache is reduced.
+	 */
+	public Long getDiskTimeToLive(Cache cache) {
+		return diskTimeToLives.get(cache.getName());
+	}
+
+	private boolean isExpired(Cache cache, File cacheFile) {
+		Long timeToLive = getDiskTimeToLive(cache);
+		return timeToLive != null && (DateUtils.nowMillis() - cacheFile.lastModified()) >= timeToLive;
+	}
+
+	/**
+	 * Removes the response from memory and from the file system.
+	 *
+	 * @param cache the cache
+	 * @param key the key of the response
+	 */
+	public void invalidate(Cache cache, String key) {
+		getResponseMemoryCache().remove(cache, key);
+		File cacheFile = getFileSystemCacheFile(cache, key);
+		FileUtils.forceDelete(cacheFile);
+		getCacheJournal(cache).onDeleted(cacheFile.getName());
+	}
+
+	public File getFileSystemCacheFile(Cache cache, String key) {
+		return new File(getFileSystemCacheDirectory(cache), CachedHttpService.generateCacheFileName(key));
+	}
+
+	public synchronized ResponseMemoryCache getResponseMemoryCache() {
+		if (responseMemoryCache == null) {
+			responseMemoryCache = createResponseMemoryCache();
+		}
+		return responseMemoryCache;
+	}
+
+	protected ResponseMemoryCache createResponseMemoryCache() {
+		// Use 1/32th of the available memory for the parsed responses
+		return new ResponseMemoryCache((int)(Runtime.getRuntime().maxMemory() / 32));
+	}
+
 	protected List<Cache> getFileSystemCaches() {
 		return Lists.newArrayList();
 	}
@@ -117,6 +383,13 @@ public class CacheManager {
 	}
 
 	public void cleanFileSystemCache(Cache cache) {
+		getResponseMemoryCache().removeAll(cache);
+		synchronized (this) {
+			CacheJournal cacheJournal = cacheJournals.remove(cache.getName());
+			if (cacheJournal != null) {
+				cacheJournal.close();
+			}
+		}
 		FileUtils.forceDelete(getFileSystemCacheDirectory(cache));
 	}
 
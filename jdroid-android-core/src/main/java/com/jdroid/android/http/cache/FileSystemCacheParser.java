@@ -0,0 +1,63 @@
+package com.jdroid.android.http.cache;
+
+import com.jdroid.android.application.AbstractApplication;
+import com.jdroid.java.exception.UnexpectedException;
+import com.jdroid.java.http.cache.Cache;
+import com.jdroid.java.http.parser.Parser;
+import com.jdroid.java.utils.FileUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+
+/**
+ * Stores the raw content of a response on the file system cache before parsing it with the wrapped parser.
+ */
+class FileSystemCacheParser implements Parser {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private Cache cache;
+	private File cacheFile;
+	private Parser parser;
+
+	FileSystemCacheParser(Cache cache, File cacheFile, Parser parser) {
+		this.cache = cache;
+		this.cacheFile = cacheFile;
+		this.parser = parser;
+	}
+
+	@Override
+	public Object parse(InputStream inputStream) {
+		store(inputStream);
+		InputStream cachedInputStream = null;
+		try {
+			cachedInputStream = new FileInputStream(cacheFile);
+			return parser.parse(cachedInputStream);
+		} catch (FileNotFoundException e) {
+			throw new UnexpectedException(e);
+		} finally {
+			FileUtils.safeClose(cachedInputStream);
+		}
+	}
+
+	@Override
+	public Object parse(String input) {
+		store(new ByteArrayInputStream(input.getBytes(UTF_8)));
+		return parser.parse(input);
+	}
+
+	private void store(InputStream inputStream) {
+		// Write on a temporary file first, so readers never see a partial response
+		File tempFile = new File(cacheFile.getParentFile(), cacheFile.getName() + CacheJournal.TEMP_FILE_SUFFIX);
+		FileUtils.copyStream(inputStream, tempFile);
+		if (!tempFile.renameTo(cacheFile)) {
+			FileUtils.forceDelete(tempFile);
+			throw new UnexpectedException("Error storing the cache file " + cacheFile.getAbsolutePath());
+		}
+		AbstractApplication.get().getCacheManager().onCacheFileWritten(cache, cacheFile);
+	}
+}
@@ -0,0 +1,57 @@
+package com.jdroid.android.http.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hits and misses of each tier of a response cache.
+ */
+public class ResponseCacheStats {
+
+	private AtomicLong memoryHits = new AtomicLong();
+	private AtomicLong memoryMisses = new AtomicLong();
+	private AtomicLong diskHits = new AtomicLong();
+	private AtomicLong diskMisses = new AtomicLong();
+
+	void onMemoryHit() {
+		memoryHits.incrementAndGet();
+	}
+
+	void onMemoryMiss() {
+		memoryMisses.incrementAndGet();
+	}
+
+	void onDiskHit() {
+		diskHits.incrementAndGet();
+	}
+
+	void onDiskMiss() {
+		diskMisses.incrementAndGet();
+	}
+
+	public long getMemoryHits() {
+		return memoryHits.get();
+	}
+
+	public long getMemoryMisses() {
+		return memoryMisses.get();
+	}
+
+	public long getDiskHits() {
+		return diskHits.get();
+	}
+
+	public long getDiskMisses() {
+		return diskMisses.get();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("{");
+		builder.append("memoryHits=").append(memoryHits.get());
+		builder.append(", memoryMisses=").append(memoryMisses.get());
+		builder.append(", diskHits=").append(diskHits.get());
+		builder.append(", diskMisses=").append(diskMisses.get());
+		builder.append('}');
+		return builder.toString();
+	}
+}
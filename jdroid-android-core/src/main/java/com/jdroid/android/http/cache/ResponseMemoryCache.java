@@ -0,0 +1,167 @@
+package com.jdroid.android.http.cache;
+
+import android.support.v4.util.LruCache;
+
+import com.jdroid.java.collections.Lists;
+import com.jdroid.java.collections.Maps;
+import com.jdroid.java.date.DateUtils;
+import com.jdroid.java.http.cache.Cache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory tier of the response caches. It keeps the recently parsed responses, bounded by the size of their raw
+ * content, and expires them using the time to live of their {@link Cache}. The kept instances are returned as they are
+ * to all the callers, so they must be treated as immutable.
+ */
+public class ResponseMemoryCache {
+
+	public static final long DEFAULT_TIME_TO_LIVE = TimeUnit.MINUTES.toMillis(5);
+
+	private static final String KEY_SEPARATOR = "|";
+
+	private LruCache<String, Entry> lruCache;
+	private Map<String, Long> timesToLive = new ConcurrentHashMap<>();
+	private ConcurrentHashMap<String, ResponseCacheStats> stats = new ConcurrentHashMap<>();
+
+	/**
+	 * @param maxSizeBytes the max size of the raw content of all the kept responses
+	 */
+	public ResponseMemoryCache(int maxSizeBytes) {
+		lruCache = new LruCache<String, Entry>(maxSizeBytes) {
+
+			@Override
+			protected int sizeOf(String key, Entry entry) {
+				return entry.size;
+			}
+		};
+	}
+
+	/**
+	 * Builds a cache key which doesn't depend on the order of the headers.
+	 *
+	 * @param url the request url, including the query parameters
+	 * @param headers the headers which change the response, or null
+	 * @return the cache key
+	 */
+	public static String buildKey(String url, Map<String, String> headers) {
+		StringBuilder builder = new StringBuilder(url);
+		if (headers != null) {
+			for (Map.Entry<String, String> entry : new TreeMap<>(headers).entrySet()) {
+				builder.append(KEY_SEPARATOR).append(entry.getKey()).append("=").append(entry.getValue());
+			}
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * @param cache the cache
+	 * @param key the response key
+	 * @return the parsed response, or null if it is not cached or expired. It is shared, so it must not be modified.
+	 */
+	public Object get(Cache cache, String key) {
+		String memoryKey = getMemoryKey(cache, key);
+		Entry entry = lruCache.get(memoryKey);
+		if (entry != null) {
+			if (entry.expirationTime > DateUtils.nowMillis()) {
+				return entry.response;
+			}
+			lruCache.remove(memoryKey);
+		}
+		return null;
+	}
+
+	/**
+	 * @param cache the cache
+	 * @param key the response key
+	 * @param response the parsed response
+	 * @param size the size in bytes of the raw content of the response
+	 */
+	public void put(Cache cache, String key, Object response, int size) {
+		if (response != null) {
+			lruCache.put(getMemoryKey(cache, key), new Entry(response, Math.max(size, 1), DateUtils.nowMillis() + getTimeToLive(cache)));
+		}
+	}
+
+	public void remove(Cache cache, String key) {
+		lruCache.remove(getMemoryKey(cache, key));
+	}
+
+	public void removeAll(Cache cache) {
+		String prefix = cache.getName() + KEY_SEPARATOR;
+		List<String> keys = Lists.newArrayList(lruCache.snapshot().keySet());
+		for (String each : keys) {
+			if (each.startsWith(prefix)) {
+				lruCache.remove(each);
+			}
+		}
+	}
+
+	public void removeAll() {
+		lruCache.evictAll();
+	}
+
+	/**
+	 * Evicts the least recently used responses until the given size is reached.
+	 *
+	 * @param maxSizeBytes the size to reach, in bytes
+	 */
+	public void trimToSize(int maxSizeBytes) {
+		lruCache.trimToSize(maxSizeBytes);
+	}
+
+	/**
+	 * @param cache the cache
+	 * @param timeToLive the milliseconds a cached response of the given cache is valid
+	 */
+	public void setTimeToLive(Cache cache, long timeToLive) {
+		timesToLive.put(cache.getName(), timeToLive);
+	}
+
+	public long getTimeToLive(Cache cache) {
+		Long timeToLive = timesToLive.get(cache.getName());
+		return timeToLive != null ? timeToLive : DEFAULT_TIME_TO_LIVE;
+	}
+
+	public ResponseCacheStats getStats(Cache cache) {
+		ResponseCacheStats cacheStats = stats.get(cache.getName());
+		if (cacheStats == null) {
+			cacheStats = new ResponseCacheStats();
+			ResponseCacheStats previous = stats.putIfAbsent(cache.getName(), cacheStats);
+			if (previous != null) {
+				cacheStats = previous;
+			}
+		}
+		return cacheStats;
+	}
+
+	/**
+	 * @return the stats of each cache, by cache name
+	 */
+	public Map<String, ResponseCacheStats> getAllStats() {
+		Map<String, ResponseCacheStats> allStats = Maps.newHashMap();
+		allStats.putAll(stats);
+		return allStats;
+	}
+
+	private String getMemoryKey(Cache cache, String key) {
+		return cache.getName() + KEY_SEPARATOR + key;
+	}
+
+	private static class Entry {
+
+		private Object response;
+		private int size;
+		private long expirationTime;
+
+		Entry(Object response, int size, long expirationTime) {
+			this.response = response;
+			this.size = size;
+			this.expirationTime = expirationTime;
+		}
+	}
+}
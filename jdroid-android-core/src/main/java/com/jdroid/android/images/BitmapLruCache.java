@@ -1,16 +1,132 @@
 package com.jdroid.android.images;
 
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
 import android.graphics.Bitmap;
 import android.support.v4.util.LruCache;
 
+import com.jdroid.android.application.AbstractApplication;
+import com.jdroid.java.collections.Lists;
+import com.jdroid.java.utils.LoggerUtils;
+
+import org.slf4j.Logger;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Memory cache of bitmaps. All the caches are trimmed when the system asks the app to reduce its memory usage. The
+ * evicted bitmaps are just released, never recycled.
+ *
+ * A cache created with a {@link BitmapPool} adds the evicted bitmaps to the pool, so they can be reused by the decoders.
+ * It should only be used when the cache owns its bitmaps, because the pooled bitmaps are overwritten by the decoders:
+ * no one else can keep a reference to a bitmap after it is evicted.
+ */
 public class BitmapLruCache extends LruCache<String, Bitmap> {
-	
+
+	private static final Logger LOGGER = LoggerUtils.getLogger(BitmapLruCache.class);
+
+	private static final Set<BitmapLruCache> CACHES = Collections.newSetFromMap(new WeakHashMap<BitmapLruCache, Boolean>());
+
+	private BitmapPool bitmapPool;
+
+	/**
+	 * Creates a cache using 1/8th of the memory class of the device.
+	 */
+	public BitmapLruCache() {
+		this(getDefaultMaxSizeBytes());
+	}
+
+	/**
+	 * Creates a cache without pooling the evicted bitmaps.
+	 *
+	 * @param maxSizeBytes the max size of the cached bitmaps, in bytes
+	 */
 	public BitmapLruCache(int maxSizeBytes) {
+		this(maxSizeBytes, null);
+	}
+
+	/**
+	 * Creates a cache which adds the evicted bitmaps to the pool. The bitmaps should not be referenced outside the cache
+	 * after their eviction.
+	 *
+	 * @param maxSizeBytes the max size of the cached bitmaps, in bytes
+	 * @param bitmapPool the pool where the evicted bitmaps are added, usually {@link BitmapPool#get()}, or null to not
+	 * reuse them
+	 */
+	public BitmapLruCache(int maxSizeBytes, BitmapPool bitmapPool) {
 		super(maxSizeBytes);
+		this.bitmapPool = bitmapPool;
+		synchronized (CACHES) {
+			CACHES.add(this);
+		}
 	}
-	
+
+	private static int getDefaultMaxSizeBytes() {
+		ActivityManager activityManager = (ActivityManager)AbstractApplication.get().getSystemService(Context.ACTIVITY_SERVICE);
+		return activityManager.getMemoryClass() * 1024 * 1024 / 8;
+	}
+
 	@Override
 	protected int sizeOf(String key, Bitmap value) {
-		return value.getRowBytes() * value.getHeight();
+		return BitmapPool.getSizeBytes(value);
+	}
+
+	@Override
+	protected void entryRemoved(boolean evicted, String key, Bitmap oldValue, Bitmap newValue) {
+		if (evicted && bitmapPool != null && oldValue != newValue) {
+			bitmapPool.put(oldValue);
+		}
+	}
+
+	/**
+	 * Reduces the cache in proportion to the trim level.
+	 *
+	 * @param level the level received on {@link ComponentCallbacks2#onTrimMemory(int)}
+	 */
+	public void onTrimMemory(int level) {
+		int fraction = getRemainingFraction(level);
+		if (fraction == 0) {
+			evictAll();
+		} else if (fraction < 4) {
+			trimToSize(maxSize() * fraction / 4);
+		}
+	}
+
+	/**
+	 * @return the quarters of the max size to keep for the trim level. The higher the level, the less is kept.
+	 */
+	static int getRemainingFraction(int level) {
+		if (level >= ComponentCallbacks2.TRIM_MEMORY_COMPLETE) {
+			return 0;
+		} else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+			return 1;
+		} else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+			return 2;
+		} else if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+			return 3;
+		}
+		return 4;
+	}
+
+	/**
+	 * Reduces all the bitmap caches and the bitmap pool in proportion to the trim level.
+	 *
+	 * @param level the level received on {@link ComponentCallbacks2#onTrimMemory(int)}
+	 */
+	public static void trimAll(int level) {
+		List<BitmapLruCache> caches;
+		synchronized (CACHES) {
+			caches = Lists.newArrayList(CACHES);
+		}
+		for (BitmapLruCache each : caches) {
+			each.onTrimMemory(level);
+		}
+		BitmapPool bitmapPool = BitmapPool.get();
+		bitmapPool.trimToSize(bitmapPool.getMaxSizeBytes() * getRemainingFraction(level) / 4);
+		LOGGER.debug("Bitmap caches trimmed for level " + level + ". Pool size: " + bitmapPool.getSizeBytes() + " bytes");
 	}
 }
@@ -0,0 +1,164 @@
+package com.jdroid.android.images;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.os.Build;
+
+import com.jdroid.android.application.AbstractApplication;
+import com.jdroid.android.utils.AndroidUtils;
+import com.jdroid.java.collections.Maps;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pool of mutable bitmaps which are not used anymore, so they can be reused by the decoders using
+ * {@link android.graphics.BitmapFactory.Options#inBitmap}. The bitmaps are kept by size and config, bounded by a max
+ * amount of bytes, and the oldest ones are evicted first.
+ *
+ * The pool never recycles the bitmaps: the evicted ones are just released, so a bitmap still referenced by mistake is
+ * garbage collected when it is not used anymore instead of failing when drawn.
+ */
+public class BitmapPool {
+
+	private static BitmapPool INSTANCE;
+
+	private int maxSizeBytes;
+	private int sizeBytes = 0;
+
+	// Pooled bitmaps by size and config, in insertion order, so the oldest groups are evicted first
+	private LinkedHashMap<String, ArrayDeque<Bitmap>> bitmaps = Maps.newLinkedHashMap();
+
+	private AtomicLong hits = new AtomicLong();
+	private AtomicLong misses = new AtomicLong();
+	private AtomicLong evictions = new AtomicLong();
+
+	public static synchronized BitmapPool get() {
+		if (INSTANCE == null) {
+			INSTANCE = new BitmapPool(getDefaultMaxSizeBytes());
+		}
+		return INSTANCE;
+	}
+
+	/**
+	 * @return 1/16th of the memory class of the device, in bytes
+	 */
+	private static int getDefaultMaxSizeBytes() {
+		ActivityManager activityManager = (ActivityManager)AbstractApplication.get().getSystemService(Context.ACTIVITY_SERVICE);
+		return activityManager.getMemoryClass() * 1024 * 1024 / 16;
+	}
+
+	public BitmapPool(int maxSizeBytes) {
+		this.maxSizeBytes = maxSizeBytes;
+	}
+
+	/**
+	 * Adds the bitmap to the pool. The bitmap should be owned by the caller and not used anymore, because it will be
+	 * overwritten by the next decoder which takes it. If it can not be reused, it is ignored.
+	 *
+	 * @param bitmap the bitmap to add
+	 */
+	public void put(Bitmap bitmap) {
+		if (bitmap == null || bitmap.isRecycled()) {
+			return;
+		}
+		int bitmapSize = getSizeBytes(bitmap);
+		if (!bitmap.isMutable() || bitmapSize > maxSizeBytes) {
+			return;
+		}
+		synchronized (this) {
+			String key = getKey(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig());
+			ArrayDeque<Bitmap> group = bitmaps.remove(key);
+			if (group == null) {
+				group = new ArrayDeque<>();
+			}
+			group.push(bitmap);
+			bitmaps.put(key, group);
+			sizeBytes += bitmapSize;
+			trimToSize(maxSizeBytes);
+		}
+	}
+
+	/**
+	 * Takes a pooled bitmap with the given size and config.
+	 *
+	 * @param width the bitmap width
+	 * @param height the bitmap height
+	 * @param config the bitmap config
+	 * @return the pooled bitmap, or null if there isn't any with the given size and config
+	 */
+	public synchronized Bitmap take(int width, int height, Bitmap.Config config) {
+		String key = getKey(width, height, config);
+		ArrayDeque<Bitmap> group = bitmaps.get(key);
+		if (group != null && !group.isEmpty()) {
+			Bitmap bitmap = group.pop();
+			if (group.isEmpty()) {
+				bitmaps.remove(key);
+			}
+			sizeBytes -= getSizeBytes(bitmap);
+			hits.incrementAndGet();
+			return bitmap;
+		}
+		misses.incrementAndGet();
+		return null;
+	}
+
+	/**
+	 * Releases the oldest pooled bitmaps until the given size is reached.
+	 *
+	 * @param targetSizeBytes the size to reach, in bytes
+	 */
+	public synchronized void trimToSize(int targetSizeBytes) {
+		Iterator<Map.Entry<String, ArrayDeque<Bitmap>>> iterator = bitmaps.entrySet().iterator();
+		while (sizeBytes > targetSizeBytes && iterator.hasNext()) {
+			ArrayDeque<Bitmap> group = iterator.next().getValue();
+			while (sizeBytes > targetSizeBytes && !group.isEmpty()) {
+				Bitmap bitmap = group.removeLast();
+				sizeBytes -= getSizeBytes(bitmap);
+				evictions.incrementAndGet();
+			}
+			if (group.isEmpty()) {
+				iterator.remove();
+			}
+		}
+	}
+
+	public synchronized void clear() {
+		trimToSize(0);
+	}
+
+	private String getKey(int width, int height, Bitmap.Config config) {
+		return width + "x" + height + ":" + config;
+	}
+
+	static int getSizeBytes(Bitmap bitmap) {
+		if (AndroidUtils.getApiLevel() >= Build.VERSION_CODES.KITKAT) {
+			return bitmap.getAllocationByteCount();
+		}
+		return bitmap.getRowBytes() * bitmap.getHeight();
+	}
+
+	public int getMaxSizeBytes() {
+		return maxSizeBytes;
+	}
+
+	public synchronized int getSizeBytes() {
+		return sizeBytes;
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public long getEvictions() {
+		return evictions.get();
+	}
+}
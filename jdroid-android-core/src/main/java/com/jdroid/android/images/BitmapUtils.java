@@ -1,25 +1,37 @@
 package com.jdroid.android.images;
 
+import android.annotation.TargetApi;
 import android.content.Context;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.graphics.BitmapFactory.Options;
 import android.net.Uri;
+import android.os.Build;
 import android.support.annotation.DrawableRes;
 
 import com.jdroid.android.application.AbstractApplication;
+import com.jdroid.android.utils.AndroidUtils;
+import com.jdroid.java.utils.FileUtils;
 import com.jdroid.java.utils.LoggerUtils;
 
 import org.slf4j.Logger;
 
+import java.io.BufferedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 
 public class BitmapUtils {
 	
 	private static final Logger LOGGER = LoggerUtils.getLogger(BitmapUtils.class);
 	
+	private static final int BUFFER_SIZE = 16 * 1024;
+	
+	// Enough to read the bounds of the images with large headers, like the camera images with EXIF thumbnails. Only the
+	// bounds are read inside the mark, so the buffer only grows up to the header size.
+	private static final int MARK_READ_LIMIT = 1024 * 1024;
+	
 	public static Bitmap toBitmap(@DrawableRes int resId) {
 		return BitmapFactory.decodeResource(AbstractApplication.get().getResources(), resId);
 	}
@@ -31,16 +43,21 @@ public class BitmapUtils {
 		return scaled;
 	}
 
+	/**
+	 * Decodes a {@link Bitmap} from an {@link InputStream}, subsampling it to fit the given width and height.
+	 *
+	 * @param input The stream from which the image is decoded. It is not closed.
+	 * @param maxWidth The maximum width of the image used to scale it. If null, the image won't be scaled
+	 * @param maxHeight The maximum height of the image used to scale it. If null, the image won't be scaled
+	 * @return {@link Bitmap} The resized image, or null if it could not be decoded.
+	 */
 	public static Bitmap toBitmap(InputStream input, Integer maxWidth, Integer maxHeight) {
-		
-		Options options = new Options();
-		if ((maxWidth != null) && (maxHeight != null)) {
-			// Set the scaling options.
-			float scale = Math.min(maxWidth.floatValue() / options.outWidth, maxHeight.floatValue() / options.outHeight);
-			options.inSampleSize = Math.round(1 / scale);
+		try {
+			return decode(input, maxWidth, maxHeight);
+		} catch (IOException e) {
+			LOGGER.error(e.getMessage(), e);
+			return null;
 		}
-		options.inJustDecodeBounds = false;
-		return BitmapFactory.decodeStream(input, null, options);
 	}
 	
 	/**
@@ -52,35 +69,124 @@ public class BitmapUtils {
 	 * @return {@link Bitmap} The resized image.
 	 */
 	public static Bitmap toBitmap(Uri uri, Integer maxWidth, Integer maxHeight) {
+		InputStream openInputStream = null;
 		try {
 			Context context = AbstractApplication.get();
-			
-			// First decode with inJustDecodeBounds=true to check dimensions
-			Options options = new Options();
-			options.inJustDecodeBounds = true;
-			InputStream openInputStream = context.getContentResolver().openInputStream(uri);
-			BitmapFactory.decodeStream(openInputStream, null, options);
-			openInputStream.close();
-			
-			// Calculate inSampleSize
-			if ((maxWidth != null) && (maxHeight != null)) {
-				float scale = Math.min(maxWidth.floatValue() / options.outWidth, maxHeight.floatValue()
-						/ options.outHeight);
-				options.inSampleSize = Math.round(1 / scale);
-			}
-			
-			// Decode bitmap with inSampleSize set
 			openInputStream = context.getContentResolver().openInputStream(uri);
-			options.inJustDecodeBounds = false;
-			Bitmap result = BitmapFactory.decodeStream(openInputStream, null, options);
-			openInputStream.close();
-			return result;
+			return decode(openInputStream, maxWidth, maxHeight);
 		} catch (Exception e) {
 			LOGGER.error(e.getMessage(), e);
 			return null;
+		} finally {
+			FileUtils.safeClose(openInputStream);
 		}
 	}
 	
+	/**
+	 * Decodes the image bounds and the image from a single stream, marking it before reading the bounds. The image is
+	 * subsampled by a power of two, limited by the decoding memory budget, and then scaled to fit the max width and
+	 * height. The images without alpha are decoded as {@link Bitmap.Config#RGB_565}, and pooled bitmaps are reused
+	 * when possible.
+	 */
+	private static Bitmap decode(InputStream input, Integer maxWidth, Integer maxHeight) throws IOException {
+		InputStream markableInput = input.markSupported() ? input : new BufferedInputStream(input, BUFFER_SIZE);
+		
+		// First decode with inJustDecodeBounds=true to check dimensions
+		markableInput.mark(MARK_READ_LIMIT);
+		Options options = new Options();
+		options.inJustDecodeBounds = true;
+		BitmapFactory.decodeStream(markableInput, null, options);
+		markableInput.reset();
+		if ((options.outWidth <= 0) || (options.outHeight <= 0)) {
+			return null;
+		}
+		
+		Bitmap.Config config = hasAlpha(options.outMimeType) ? Bitmap.Config.ARGB_8888 : Bitmap.Config.RGB_565;
+		int bytesPerPixel = config == Bitmap.Config.RGB_565 ? 2 : 4;
+		options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, maxWidth, maxHeight, bytesPerPixel);
+		options.inPreferredConfig = config;
+		options.inJustDecodeBounds = false;
+		
+		Bitmap bitmap = decodeReusingBitmap(markableInput, options, config);
+		if ((bitmap != null) && (maxWidth != null) && (maxHeight != null)) {
+			// Final scale, as the subsampling is limited to powers of two
+			float scale = Math.min(maxWidth.floatValue() / bitmap.getWidth(), maxHeight.floatValue() / bitmap.getHeight());
+			if (scale < 1) {
+				Bitmap scaled = Bitmap.createScaledBitmap(bitmap, Math.max(1, Math.round(bitmap.getWidth() * scale)),
+						Math.max(1, Math.round(bitmap.getHeight() * scale)), true);
+				if (scaled != bitmap) {
+					BitmapPool.get().put(bitmap);
+				}
+				bitmap = scaled;
+			}
+		}
+		return bitmap;
+	}
+	
+	/**
+	 * Decodes the image into a pooled bitmap when there is one large enough for it. The pooled bitmap is checked before
+	 * decoding, because the stream can't be read again if the decoder rejects it.
+	 */
+	private static Bitmap decodeReusingBitmap(InputStream input, Options options, Bitmap.Config config) {
+		// Before KitKat, the reused bitmaps should have the same size and a sample size of 1
+		if (AndroidUtils.getApiLevel() >= Build.VERSION_CODES.KITKAT) {
+			int width = (options.outWidth + options.inSampleSize - 1) / options.inSampleSize;
+			int height = (options.outHeight + options.inSampleSize - 1) / options.inSampleSize;
+			options.inMutable = true;
+			Bitmap pooledBitmap = BitmapPool.get().take(width, height, config);
+			if (pooledBitmap != null) {
+				if (canReuse(pooledBitmap, width, height, config)) {
+					options.inBitmap = pooledBitmap;
+				} else {
+					BitmapPool.get().put(pooledBitmap);
+				}
+			}
+		}
+		return BitmapFactory.decodeStream(input, null, options);
+	}
+	
+	@TargetApi(Build.VERSION_CODES.KITKAT)
+	private static boolean canReuse(Bitmap bitmap, int width, int height, Bitmap.Config config) {
+		int bytesPerPixel = config == Bitmap.Config.RGB_565 ? 2 : 4;
+		return !bitmap.isRecycled() && bitmap.isMutable() && bitmap.getConfig() == config
+				&& bitmap.getAllocationByteCount() >= (long)width * height * bytesPerPixel;
+	}
+	
+	/**
+	 * Calculates the largest power of two sample size which keeps the image at least as large as the max width and
+	 * height, and the decoded image inside the decoding memory budget.
+	 */
+	static int calculateInSampleSize(int width, int height, Integer maxWidth, Integer maxHeight, int bytesPerPixel) {
+		int inSampleSize = 1;
+		if ((maxWidth != null) && (maxHeight != null)) {
+			while (((width / (inSampleSize * 2)) >= maxWidth) && ((height / (inSampleSize * 2)) >= maxHeight)) {
+				inSampleSize *= 2;
+			}
+		}
+		long maxDecodeBytes = getMaxDecodeBytes();
+		while (((long)(width / inSampleSize) * (height / inSampleSize) * bytesPerPixel) > maxDecodeBytes) {
+			inSampleSize *= 2;
+		}
+		return inSampleSize;
+	}
+	
+	/**
+	 * @return the max amount of bytes a decoded image can use, 1/8th of the max heap
+	 */
+	private static long getMaxDecodeBytes() {
+		return Runtime.getRuntime().maxMemory() / 8;
+	}
+	
+	private static boolean hasAlpha(String mimeType) {
+		return !"image/jpeg".equals(mimeType);
+	}
+	
+	/**
+	 * @deprecated The bitmap and two copies of the encoded image are kept on the heap. Use
+	 * {@link ImageEncoder#openEncodedInputStream(Uri, Integer, Integer, Bitmap.CompressFormat, int)} or
+	 * {@link ImageEncoder#encode(Uri, Integer, Integer, Bitmap.CompressFormat, int, java.io.File)} instead.
+	 */
+	@Deprecated
 	public static ByteArrayInputStream toPNGInputStream(Uri uri, Integer maxWidth, Integer maxHeight) {
 		Bitmap bitmap = BitmapUtils.toBitmap(uri, maxWidth, maxHeight);
 		return BitmapUtils.toPNGInputStream(bitmap);
@@ -91,7 +197,10 @@ public class BitmapUtils {
 	 * 
 	 * @param bitmap The {@link Bitmap} to compress
 	 * @return The {@link ByteArrayInputStream}
+	 * @deprecated Two copies of the encoded image are kept on the heap. Use
+	 * {@link ImageEncoder#encode(Bitmap, Bitmap.CompressFormat, int, java.io.OutputStream)} instead.
 	 */
+	@Deprecated
 	public static ByteArrayInputStream toPNGInputStream(Bitmap bitmap) {
 		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
 		bitmap.compress(Bitmap.CompressFormat.PNG, 100, bytes);
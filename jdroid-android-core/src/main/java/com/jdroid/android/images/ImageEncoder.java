@@ -0,0 +1,204 @@
+package com.jdroid.android.images;
+
+import android.graphics.Bitmap;
+import android.graphics.Bitmap.CompressFormat;
+import android.net.Uri;
+import android.support.annotation.IntRange;
+import android.support.annotation.WorkerThread;
+
+import com.jdroid.android.application.AbstractApplication;
+import com.jdroid.java.concurrent.ExecutorUtils;
+import com.jdroid.java.exception.UnexpectedException;
+import com.jdroid.java.utils.FileUtils;
+import com.jdroid.java.utils.LoggerUtils;
+
+import org.slf4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+
+/**
+ * Encodes images directly to files or streams, so the encoded content is never fully kept on the heap.
+ */
+public class ImageEncoder {
+
+	private static final Logger LOGGER = LoggerUtils.getLogger(ImageEncoder.class);
+
+	public static final int DEFAULT_QUALITY = 85;
+
+	private static final int BUFFER_SIZE = 16 * 1024;
+	private static final int PIPE_SIZE = 64 * 1024;
+
+	/**
+	 * Encodes the bitmap to the stream. The stream is not closed.
+	 *
+	 * @param bitmap The {@link Bitmap} to encode
+	 * @param format The format, usually {@link CompressFormat#JPEG} or {@link CompressFormat#WEBP} for photos
+	 * @param quality The quality, ignored by lossless formats
+	 * @param outputStream The stream where the encoded image is written
+	 */
+	@WorkerThread
+	public static void encode(Bitmap bitmap, CompressFormat format, @IntRange(from = 0, to = 100) int quality,
+			OutputStream outputStream) {
+		BufferedOutputStream bufferedOutputStream = new BufferedOutputStream(outputStream, BUFFER_SIZE);
+		try {
+			if (!bitmap.compress(format, quality, bufferedOutputStream)) {
+				throw new UnexpectedException("Error encoding the image as " + format);
+			}
+			bufferedOutputStream.flush();
+		} catch (IOException e) {
+			throw new UnexpectedException(e);
+		}
+	}
+
+	/**
+	 * Encodes the bitmap to the file.
+	 *
+	 * @param bitmap The {@link Bitmap} to encode
+	 * @param format The format, usually {@link CompressFormat#JPEG} or {@link CompressFormat#WEBP} for photos
+	 * @param quality The quality, ignored by lossless formats
+	 * @param file The file where the encoded image is written
+	 */
+	@WorkerThread
+	public static void encode(Bitmap bitmap, CompressFormat format, @IntRange(from = 0, to = 100) int quality, File file) {
+		OutputStream outputStream = null;
+		try {
+			outputStream = new FileOutputStream(file);
+			encode(bitmap, format, quality, outputStream);
+		} catch (IOException e) {
+			throw new UnexpectedException(e);
+		} finally {
+			FileUtils.safeClose(outputStream);
+		}
+	}
+
+	/**
+	 * Decodes the image of the {@link Uri}, resized to a determined width and height, and encodes it to the file.
+	 *
+	 * @param uri The {@link Uri} from which the image is obtained
+	 * @param maxWidth The maximum width of the image used to scale it. If null, the image won't be scaled
+	 * @param maxHeight The maximum height of the image used to scale it. If null, the image won't be scaled
+	 * @param format The format, usually {@link CompressFormat#JPEG} or {@link CompressFormat#WEBP} for photos
+	 * @param quality The quality, ignored by lossless formats
+	 * @param file The file where the encoded image is written
+	 */
+	@WorkerThread
+	public static void encode(Uri uri, Integer maxWidth, Integer maxHeight, CompressFormat format,
+			@IntRange(from = 0, to = 100) int quality, File file) {
+		Bitmap bitmap = decode(uri, maxWidth, maxHeight);
+		try {
+			encode(bitmap, format, quality, file);
+		} finally {
+			BitmapPool.get().put(bitmap);
+		}
+	}
+
+	/**
+	 * Returns a stream with the encoded image of the {@link Uri}, resized to a determined width and height. The image is
+	 * decoded and encoded on a worker thread while the stream is read, for example by an upload.
+	 *
+	 * @param uri The {@link Uri} from which the image is obtained
+	 * @param maxWidth The maximum width of the image used to scale it. If null, the image won't be scaled
+	 * @param maxHeight The maximum height of the image used to scale it. If null, the image won't be scaled
+	 * @param format The format, usually {@link CompressFormat#JPEG} or {@link CompressFormat#WEBP} for photos
+	 * @param quality The quality, ignored by lossless formats
+	 * @return The stream to read the encoded image. It should be closed by the caller.
+	 */
+	public static InputStream openEncodedInputStream(final Uri uri, final Integer maxWidth, final Integer maxHeight,
+			final CompressFormat format, @IntRange(from = 0, to = 100) final int quality) {
+		final PipedOutputStream pipedOutputStream = new PipedOutputStream();
+		final EncodedInputStream encodedInputStream;
+		try {
+			encodedInputStream = new EncodedInputStream(pipedOutputStream);
+		} catch (IOException e) {
+			throw new UnexpectedException(e);
+		}
+		ExecutorUtils.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				Bitmap bitmap = null;
+				try {
+					bitmap = decode(uri, maxWidth, maxHeight);
+					encode(bitmap, format, quality, pipedOutputStream);
+				} catch (Exception e) {
+					LOGGER.error("Error encoding the image " + uri, e);
+					encodedInputStream.onFailure(e);
+				} finally {
+					FileUtils.safeClose(pipedOutputStream);
+					if (bitmap != null) {
+						BitmapPool.get().put(bitmap);
+					}
+				}
+			}
+		});
+		return encodedInputStream;
+	}
+
+	private static Bitmap decode(Uri uri, Integer maxWidth, Integer maxHeight) {
+		Bitmap bitmap = BitmapUtils.toBitmap(uri, maxWidth, maxHeight);
+		if (bitmap == null) {
+			throw new UnexpectedException("Error decoding the image " + uri);
+		}
+		return bitmap;
+	}
+
+	/**
+	 * @param format The format of the image to store
+	 * @return a new file on the app cache directory, where an encoded image can be stored before being uploaded
+	 */
+	public static File createTempImageFile(CompressFormat format) {
+		try {
+			String extension = format == CompressFormat.PNG ? ".png" : (format == CompressFormat.WEBP ? ".webp" : ".jpg");
+			return File.createTempFile("image", extension, AbstractApplication.get().getCacheDir());
+		} catch (IOException e) {
+			throw new UnexpectedException(e);
+		}
+	}
+
+	/**
+	 * Pipe which fails the reads when the image could not be completely encoded, instead of returning a truncated image.
+	 */
+	private static class EncodedInputStream extends PipedInputStream {
+
+		private volatile Exception failure;
+
+		EncodedInputStream(PipedOutputStream pipedOutputStream) throws IOException {
+			super(pipedOutputStream, PIPE_SIZE);
+		}
+
+		void onFailure(Exception failure) {
+			this.failure = failure;
+		}
+
+		@Override
+		public synchronized int read() throws IOException {
+			int result = super.read();
+			if (result == -1) {
+				checkFailure();
+			}
+			return result;
+		}
+
+		@Override
+		public synchronized int read(byte[] buffer, int offset, int length) throws IOException {
+			int result = super.read(buffer, offset, length);
+			if (result == -1) {
+				checkFailure();
+			}
+			return result;
+		}
+
+		private void checkFailure() throws IOException {
+			if (failure != null) {
+				throw new IOException("Error encoding the image", failure);
+			}
+		}
+	}
+}
@@ -13,7 +13,9 @@ abstract class AbstractInitProvider extends ContentProvider {
 	
 	@Override
 	public final boolean onCreate() {
+		StartupPhase phase = StartupTracer.begin("providerInit:" + getClass().getSimpleName());
 		init();
+		phase.end();
 		return false;
 	}
 
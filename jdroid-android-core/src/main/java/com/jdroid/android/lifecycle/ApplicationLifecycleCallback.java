@@ -2,12 +2,18 @@ package com.jdroid.android.lifecycle;
 
 import android.content.Context;
 import android.content.res.Configuration;
+import android.support.annotation.AnyThread;
 import android.support.annotation.MainThread;
 import android.support.annotation.NonNull;
 
+import java.util.Collections;
+import java.util.List;
+
 /**
  * Callback for monitoring application lifecycle events. These callbacks are invoked on the main
  * thread, so any long operations or violating the strict mode policies should be avoided.
+ * The only exception is {@link #onCreate(Context)}, which is invoked on a worker thread when
+ * {@link #isMainThreadRequired()} returns false.
  */
 public abstract class ApplicationLifecycleCallback implements Comparable<ApplicationLifecycleCallback> {
 	
@@ -21,7 +27,7 @@ public abstract class ApplicationLifecycleCallback implements Comparable<Applica
 		// Do nothing
 	}
 	
-	@MainThread
+	@AnyThread
 	public void onCreate(Context context) {
 		// Do nothing
 	}
@@ -42,8 +48,7 @@ public abstract class ApplicationLifecycleCallback implements Comparable<Applica
 	}
 	
 	/*
-	 * The order in which the application listener should be invoked, relative to other application listeners.
-	 * When there are dependencies among callbacks, setting this attribute for each of them ensures that they are created in the order required by those dependencies.
+	 * The order in which the application listener should be invoked, relative to other application listeners without dependencies among them.
 	 * The value is a simple integer, with higher numbers being invoked first. Zero is the default value and negative numbers are accepted.
 	 */
 	@NonNull
@@ -59,4 +64,21 @@ public abstract class ApplicationLifecycleCallback implements Comparable<Applica
 	public Boolean isEnabled() {
 		return true;
 	}
+	
+	/*
+	 * The callbacks which should be invoked before this one. The dependencies which are not registered are ignored,
+	 * and the ones which are not enabled are considered satisfied.
+	 */
+	@NonNull
+	public List<Class<? extends ApplicationLifecycleCallback>> getDependencies() {
+		return Collections.emptyList();
+	}
+	
+	/*
+	 * Whether onCreate should be invoked on the main thread. When false, it is invoked on a worker thread, in parallel with
+	 * the callbacks it doesn't depend on, and the application creation doesn't wait for it unless a main thread callback depends on it.
+	 */
+	public Boolean isMainThreadRequired() {
+		return true;
+	}
 }
@@ -0,0 +1,234 @@
+package com.jdroid.android.lifecycle;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.MainThread;
+
+import com.jdroid.java.collections.Lists;
+import com.jdroid.java.collections.Maps;
+import com.jdroid.java.exception.UnexpectedException;
+import com.jdroid.java.utils.LoggerUtils;
+
+import org.slf4j.Logger;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Startup graph of the {@link ApplicationLifecycleCallback}s. The callbacks are sorted only once, so each one is invoked
+ * after its dependencies, and the callbacks without dependencies among them keep the
+ * {@link ApplicationLifecycleCallback#getInitOrder()} order.
+ */
+class ApplicationLifecycleGraph {
+
+	private static final Logger LOGGER = LoggerUtils.getLogger(ApplicationLifecycleGraph.class);
+
+	private List<ApplicationLifecycleCallback> callbacks;
+	private List<ApplicationLifecycleCallback> sortedCallbacks;
+	private Map<ApplicationLifecycleCallback, List<ApplicationLifecycleCallback>> dependenciesMap = Maps.newHashMap();
+
+	ApplicationLifecycleGraph(List<ApplicationLifecycleCallback> callbacks) {
+		this.callbacks = callbacks;
+
+		Map<Class<?>, ApplicationLifecycleCallback> callbacksByClass = Maps.newHashMap();
+		for (ApplicationLifecycleCallback each : callbacks) {
+			callbacksByClass.put(each.getClass(), each);
+		}
+
+		Map<ApplicationLifecycleCallback, List<ApplicationLifecycleCallback>> dependentsMap = Maps.newHashMap();
+		Map<ApplicationLifecycleCallback, Integer> pendingDependenciesMap = Maps.newHashMap();
+		for (ApplicationLifecycleCallback each : callbacks) {
+			List<ApplicationLifecycleCallback> dependencies = Lists.newArrayList();
+			for (Class<? extends ApplicationLifecycleCallback> dependencyClass : each.getDependencies()) {
+				ApplicationLifecycleCallback dependency = callbacksByClass.get(dependencyClass);
+				if (dependency == null) {
+					LOGGER.debug("Ignoring not registered dependency " + dependencyClass.getName() + " of " + each.getClass().getName());
+				} else if (!dependencies.contains(dependency)) {
+					dependencies.add(dependency);
+					List<ApplicationLifecycleCallback> dependents = dependentsMap.get(dependency);
+					if (dependents == null) {
+						dependents = Lists.newArrayList();
+						dependentsMap.put(dependency, dependents);
+					}
+					dependents.add(each);
+				}
+			}
+			dependenciesMap.put(each, dependencies);
+			pendingDependenciesMap.put(each, dependencies.size());
+		}
+
+		// Topological sort, using the init order to choose among the callbacks ready to be invoked
+		PriorityQueue<ApplicationLifecycleCallback> readyCallbacks = new PriorityQueue<>();
+		for (ApplicationLifecycleCallback each : callbacks) {
+			if (pendingDependenciesMap.get(each) == 0) {
+				readyCallbacks.add(each);
+			}
+		}
+		sortedCallbacks = Lists.newArrayList();
+		while (!readyCallbacks.isEmpty()) {
+			ApplicationLifecycleCallback callback = readyCallbacks.poll();
+			sortedCallbacks.add(callback);
+			List<ApplicationLifecycleCallback> dependents = dependentsMap.get(callback);
+			if (dependents != null) {
+				for (ApplicationLifecycleCallback dependent : dependents) {
+					int pendingDependencies = pendingDependenciesMap.get(dependent) - 1;
+					pendingDependenciesMap.put(dependent, pendingDependencies);
+					if (pendingDependencies == 0) {
+						readyCallbacks.add(dependent);
+					}
+				}
+			}
+		}
+
+		if (sortedCallbacks.size() < callbacks.size()) {
+			List<String> cyclicCallbacks = Lists.newArrayList();
+			for (ApplicationLifecycleCallback each : callbacks) {
+				if (!sortedCallbacks.contains(each)) {
+					cyclicCallbacks.add(each.getClass().getName());
+				}
+			}
+			throw new UnexpectedException("Circular dependency among the ApplicationLifecycleCallbacks: " + cyclicCallbacks);
+		}
+	}
+
+	/**
+	 * @return whether the graph was built from the given list of callbacks
+	 */
+	boolean isBuiltFrom(List<ApplicationLifecycleCallback> callbacks) {
+		return this.callbacks == callbacks;
+	}
+
+	/**
+	 * @return all the callbacks, each one after its dependencies
+	 */
+	List<ApplicationLifecycleCallback> getSortedCallbacks() {
+		return Collections.unmodifiableList(sortedCallbacks);
+	}
+
+	/**
+	 * Invokes {@link ApplicationLifecycleCallback#onCreate(Context)} on the enabled callbacks. The callbacks which
+	 * require the main thread are invoked on the calling thread, in order, waiting for their background dependencies.
+	 * The rest are invoked on worker threads as soon as their dependencies finish, and this method doesn't wait for them.
+	 * A failure on a worker thread is rethrown on the main thread, the same way a failure on the main thread would be.
+	 */
+	@MainThread
+	void onCreate(final Context context) {
+
+		Map<ApplicationLifecycleCallback, Node> nodesMap = Maps.newHashMap();
+		List<Node> nodes = Lists.newArrayList();
+		int backgroundNodesCount = 0;
+		for (ApplicationLifecycleCallback each : sortedCallbacks) {
+			Node node = new Node(each, each.isEnabled());
+			for (ApplicationLifecycleCallback dependency : dependenciesMap.get(each)) {
+				node.dependencies.add(nodesMap.get(dependency));
+			}
+			if (!node.enabled) {
+				node.done.countDown();
+			} else if (!each.isMainThreadRequired()) {
+				backgroundNodesCount++;
+			}
+			nodesMap.put(each, node);
+			nodes.add(node);
+		}
+
+		// The nodes are submitted in topological order, so a worker only waits for nodes already taken from the queue
+		ExecutorService executorService = null;
+		if (backgroundNodesCount > 0) {
+			executorService = Executors.newFixedThreadPool(Math.min(backgroundNodesCount, Runtime.getRuntime().availableProcessors()));
+		}
+		for (final Node node : nodes) {
+			if (node.enabled) {
+				if (node.callback.isMainThreadRequired()) {
+					node.run(context);
+					if (node.failure != null) {
+						if (executorService != null) {
+							executorService.shutdown();
+						}
+						if (node.failure instanceof RuntimeException) {
+							throw (RuntimeException)node.failure;
+						} else if (node.failure instanceof Error) {
+							throw (Error)node.failure;
+						}
+						throw new UnexpectedException(node.failure);
+					}
+				} else {
+					executorService.execute(new Runnable() {
+
+						@Override
+						public void run() {
+							node.run(context);
+							if (node.failure != null && !node.dependencyFailed) {
+								rethrowOnMainThread(node);
+							}
+						}
+					});
+				}
+			}
+		}
+		if (executorService != null) {
+			executorService.shutdown();
+		}
+	}
+
+	private static void rethrowOnMainThread(final Node node) {
+		LOGGER.error("Error executing onCreate for " + node.callback.getClass().getName(), node.failure);
+		new Handler(Looper.getMainLooper()).post(new Runnable() {
+
+			@Override
+			public void run() {
+				if (node.failure instanceof RuntimeException) {
+					throw (RuntimeException)node.failure;
+				} else if (node.failure instanceof Error) {
+					throw (Error)node.failure;
+				}
+				throw new UnexpectedException(node.failure);
+			}
+		});
+	}
+
+	private static class Node {
+
+		private ApplicationLifecycleCallback callback;
+		private Boolean enabled;
+		private List<Node> dependencies = Lists.newArrayList();
+		private CountDownLatch done = new CountDownLatch(1);
+		private volatile Throwable failure;
+		// Whether the failure was inherited from a dependency, so it is only reported once
+		private volatile boolean dependencyFailed;
+
+		Node(ApplicationLifecycleCallback callback, Boolean enabled) {
+			this.callback = callback;
+			this.enabled = enabled;
+		}
+
+		void run(Context context) {
+			try {
+				for (Node dependency : dependencies) {
+					dependency.done.await();
+					if (dependency.failure != null) {
+						failure = dependency.failure;
+						dependencyFailed = true;
+						return;
+					}
+				}
+				LOGGER.debug("Executing onCreate for " + callback.getClass().getName() + " on thread " + Thread.currentThread().getName());
+				StartupPhase phase = StartupTracer.begin("onCreate:" + callback.getClass().getSimpleName());
+				callback.onCreate(context);
+				phase.end();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				failure = e;
+			} catch (Throwable e) {
+				failure = e;
+			} finally {
+				done.countDown();
+			}
+		}
+	}
+}
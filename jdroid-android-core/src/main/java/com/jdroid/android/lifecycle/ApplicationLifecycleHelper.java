@@ -11,7 +11,6 @@ import com.jdroid.java.utils.LoggerUtils;
 import org.slf4j.Logger;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 
 public class ApplicationLifecycleHelper {
@@ -21,6 +20,7 @@ public class ApplicationLifecycleHelper {
 	private static final String METADATA_VALUE = "ApplicationLifecycleCallback";
 	
 	private static List<ApplicationLifecycleCallback> applicationLifecycleCallbacks;
+	private static ApplicationLifecycleGraph applicationLifecycleGraph;
 	
 	@MainThread
 	public static void onProviderInit(Context context) {
@@ -28,10 +28,12 @@ public class ApplicationLifecycleHelper {
 		LOGGER.debug("Executing init on AbstractInitProvider");
 		
 		init(context);
-		for (ApplicationLifecycleCallback callback : applicationLifecycleCallbacks) {
+		for (ApplicationLifecycleCallback callback : applicationLifecycleGraph.getSortedCallbacks()) {
 			if (callback.isEnabled()) {
 				LOGGER.debug("Executing onProviderInit for " + callback.getClass().getName());
+				StartupPhase phase = StartupTracer.begin("onProviderInit:" + callback.getClass().getSimpleName());
 				callback.onProviderInit(context);
+				phase.end();
 			}
 		}
 	}
@@ -44,10 +46,12 @@ public class ApplicationLifecycleHelper {
 		LOGGER.debug("Executing attachBaseContext on application");
 		
 		init(context);
-		for (ApplicationLifecycleCallback callback : applicationLifecycleCallbacks) {
+		for (ApplicationLifecycleCallback callback : applicationLifecycleGraph.getSortedCallbacks()) {
 			if (callback.isEnabled()) {
 				LOGGER.debug("Executing attachBaseContext for " + callback.getClass().getName());
+				StartupPhase phase = StartupTracer.begin("attachBaseContext:" + callback.getClass().getSimpleName());
 				callback.attachBaseContext(context);
+				phase.end();
 			}
 		}
 	}
@@ -58,12 +62,7 @@ public class ApplicationLifecycleHelper {
 		LOGGER.debug("Executing onCreate on application");
 		
 		init(context);
-		for (ApplicationLifecycleCallback callback : applicationLifecycleCallbacks) {
-			if (callback.isEnabled()) {
-				LOGGER.debug("Executing onCreate for " + callback.getClass().getName());
-				callback.onCreate(context);
-			}
-		}
+		applicationLifecycleGraph.onCreate(context);
 	}
 	
 	@MainThread
@@ -72,7 +71,7 @@ public class ApplicationLifecycleHelper {
 		LOGGER.debug("Executing onConfigurationChanged on application");
 		
 		init(context);
-		for (ApplicationLifecycleCallback callback : applicationLifecycleCallbacks) {
+		for (ApplicationLifecycleCallback callback : applicationLifecycleGraph.getSortedCallbacks()) {
 			if (callback.isEnabled()) {
 				LOGGER.debug("Executing onConfigurationChanged for " + callback.getClass().getName());
 				callback.onConfigurationChanged(context, newConfig);
@@ -86,7 +85,7 @@ public class ApplicationLifecycleHelper {
 		LOGGER.debug("Executing onLowMemory on application");
 		
 		init(context);
-		for (ApplicationLifecycleCallback callback : applicationLifecycleCallbacks) {
+		for (ApplicationLifecycleCallback callback : applicationLifecycleGraph.getSortedCallbacks()) {
 			if (callback.isEnabled()) {
 				LOGGER.debug("Executing onLowMemory for " + callback.getClass().getName());
 				callback.onLowMemory(context);
@@ -100,7 +99,7 @@ public class ApplicationLifecycleHelper {
 		LOGGER.trace("Executing onLocaleChanged on application");
 		
 		init(context);
-		for (ApplicationLifecycleCallback callback : applicationLifecycleCallbacks) {
+		for (ApplicationLifecycleCallback callback : applicationLifecycleGraph.getSortedCallbacks()) {
 			if (callback.isEnabled()) {
 				LOGGER.debug("Executing onLocaleChanged for " + callback.getClass().getName());
 				callback.onLocaleChanged(context);
@@ -110,7 +109,13 @@ public class ApplicationLifecycleHelper {
 	
 	private static void init(Context context) {
 		if (applicationLifecycleCallbacks == null) {
+			StartupPhase phase = StartupTracer.begin("loadApplicationLifecycleCallbacks");
 			applicationLifecycleCallbacks = ApplicationLifecycleHelper.parseApplicationLifecycleCallbacks(context);
+			phase.end();
+		}
+		// The graph is rebuilt if the callbacks are replaced, as the tests do
+		if (applicationLifecycleGraph == null || !applicationLifecycleGraph.isBuiltFrom(applicationLifecycleCallbacks)) {
+			applicationLifecycleGraph = new ApplicationLifecycleGraph(applicationLifecycleCallbacks);
 		}
 	}
 	
@@ -139,8 +144,6 @@ public class ApplicationLifecycleHelper {
 		
 		LOGGER.debug("Finished loading application lifecycle callbacks");
 		
-		Collections.sort(applicationLifecycleCallbacks);
-		
 		return applicationLifecycleCallbacks;
 	}
 	
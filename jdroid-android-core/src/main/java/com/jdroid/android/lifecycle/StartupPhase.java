@@ -0,0 +1,39 @@
+package com.jdroid.android.lifecycle;
+
+/**
+ * Phase of the startup timeline recorded by {@link StartupTracer}.
+ */
+public class StartupPhase {
+	
+	private String name;
+	private String threadName;
+	private long startNanos;
+	private long durationNanos;
+	
+	StartupPhase(String name, long startNanos) {
+		this.name = name;
+		this.startNanos = startNanos;
+		threadName = Thread.currentThread().getName();
+	}
+	
+	public void end() {
+		durationNanos = System.nanoTime() - startNanos;
+		StartupTracer.onPhaseEnded(this);
+	}
+	
+	public String getName() {
+		return name;
+	}
+	
+	public String getThreadName() {
+		return threadName;
+	}
+	
+	public long getStartNanos() {
+		return startNanos;
+	}
+	
+	public long getDurationNanos() {
+		return durationNanos;
+	}
+}
@@ -0,0 +1,248 @@
+package com.jdroid.android.lifecycle;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import com.google.firebase.perf.metrics.Trace;
+import com.jdroid.android.firebase.performance.TraceHelper;
+import com.jdroid.android.utils.AndroidUtils;
+import com.jdroid.android.utils.AppUtils;
+import com.jdroid.java.collections.Lists;
+import com.jdroid.java.concurrent.ExecutorUtils;
+import com.jdroid.java.exception.UnexpectedException;
+import com.jdroid.java.json.JSONArray;
+import com.jdroid.java.json.JSONException;
+import com.jdroid.java.json.JSONObject;
+import com.jdroid.java.utils.FileUtils;
+import com.jdroid.java.utils.LoggerUtils;
+
+import org.slf4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the cold start timeline of the application, from the process start until the first activity is resumed. Each
+ * phase is recorded with monotonic timestamps relative to the process start, and the timeline is exported as a
+ * Firebase Performance trace and, on non release builds, as a JSON report on the files directory.
+ * The timeline is discarded when the process was not started to launch an activity (for example, by a job, a receiver
+ * or a push message), because the first activity could be resumed much later.
+ */
+public class StartupTracer {
+
+	private static final Logger LOGGER = LoggerUtils.getLogger(StartupTracer.class);
+
+	public static final String TRACE_NAME = "AppStartup";
+	public static final String REPORT_FILE_NAME = "startup_trace.json";
+
+	// Firebase Performance supports up to 32 metrics per trace
+	private static final int MAX_TRACE_METRICS = 32;
+
+	private static final int MAX_PHASES = 200;
+
+	private static final long ORIGIN_NANOS;
+	private static final Boolean PROCESS_START_ORIGIN;
+
+	static {
+		long nowNanos = System.nanoTime();
+		if (AndroidUtils.getApiLevel() >= Build.VERSION_CODES.N) {
+			// Translate the process start to the monotonic clock used by the phases
+			long sinceProcessStartMillis = SystemClock.elapsedRealtime() - Process.getStartElapsedRealtime();
+			ORIGIN_NANOS = nowNanos - TimeUnit.MILLISECONDS.toNanos(sinceProcessStartMillis);
+			PROCESS_START_ORIGIN = true;
+		} else {
+			ORIGIN_NANOS = nowNanos;
+			PROCESS_START_ORIGIN = false;
+		}
+	}
+
+	private static final List<StartupPhase> phases = Lists.newArrayList();
+	private static Long finishNanos;
+	private static String report;
+	// Null until it is known if an activity was launched right after the application creation
+	private static Boolean activityLaunch;
+
+	/**
+	 * Starts recording a phase. The returned phase should be ended when the phase finishes.
+	 *
+	 * @param name the name of the phase
+	 * @return the started phase
+	 */
+	public static StartupPhase begin(@NonNull String name) {
+		return new StartupPhase(name, System.nanoTime());
+	}
+
+	static synchronized void onPhaseEnded(StartupPhase phase) {
+		if (finishNanos == null && !Boolean.FALSE.equals(activityLaunch) && phases.size() < MAX_PHASES) {
+			phases.add(phase);
+		}
+	}
+
+	/**
+	 * Registers the callbacks to finish the timeline when the first activity is resumed. It should be invoked on the
+	 * main thread, during the application creation. If no activity is created before the messages already queued on
+	 * the main thread are processed, the process was not started to launch an activity, so the timeline is discarded.
+	 */
+	public static void registerActivityLifecycleCallbacks(final Application application) {
+		final Application.ActivityLifecycleCallbacks callbacks = new Application.ActivityLifecycleCallbacks() {
+
+			@Override
+			public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+				synchronized (StartupTracer.class) {
+					if (activityLaunch == null) {
+						activityLaunch = true;
+					}
+				}
+			}
+
+			@Override
+			public void onActivityStarted(Activity activity) {
+
+			}
+
+			@Override
+			public void onActivityResumed(Activity activity) {
+				application.unregisterActivityLifecycleCallbacks(this);
+				finish(application, activity);
+			}
+
+			@Override
+			public void onActivityPaused(Activity activity) {
+
+			}
+
+			@Override
+			public void onActivityStopped(Activity activity) {
+
+			}
+
+			@Override
+			public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+
+			}
+
+			@Override
+			public void onActivityDestroyed(Activity activity) {
+
+			}
+		};
+		application.registerActivityLifecycleCallbacks(callbacks);
+
+		// The launch of the activity, if any, is queued before the application is created
+		new Handler(Looper.getMainLooper()).post(new Runnable() {
+
+			@Override
+			public void run() {
+				synchronized (StartupTracer.class) {
+					if (activityLaunch != null) {
+						return;
+					}
+					activityLaunch = false;
+					phases.clear();
+				}
+				application.unregisterActivityLifecycleCallbacks(callbacks);
+				LOGGER.info("Startup timeline discarded, because the process was not started to launch an activity");
+			}
+		});
+	}
+
+	private static void finish(final Application application, Activity activity) {
+		final List<StartupPhase> finishedPhases;
+		synchronized (StartupTracer.class) {
+			if (finishNanos != null || !Boolean.TRUE.equals(activityLaunch)) {
+				return;
+			}
+			finishNanos = System.nanoTime();
+			finishedPhases = Lists.newArrayList(phases);
+			phases.clear();
+		}
+
+		final String report = createReport(activity.getClass().getName(), finishedPhases);
+		synchronized (StartupTracer.class) {
+			StartupTracer.report = report;
+		}
+		LOGGER.info("Startup timeline: " + report);
+
+		exportTrace(finishedPhases);
+
+		if (!AppUtils.isReleaseBuildType()) {
+			ExecutorUtils.execute(new Runnable() {
+
+				@Override
+				public void run() {
+					File file = new File(application.getFilesDir(), REPORT_FILE_NAME);
+					FileUtils.copyStream(new ByteArrayInputStream(report.getBytes(Charset.forName("UTF-8"))), file);
+				}
+			});
+		}
+	}
+
+	private static void exportTrace(List<StartupPhase> finishedPhases) {
+		Trace trace = TraceHelper.newTrace(TRACE_NAME);
+		if (trace != null) {
+			trace.start();
+			trace.putMetric("total", getOffsetMillis(finishNanos));
+			int metricsCount = 1;
+			for (StartupPhase each : finishedPhases) {
+				if (each.getName().length() > 100) {
+					continue;
+				}
+				if (metricsCount >= MAX_TRACE_METRICS) {
+					break;
+				}
+				metricsCount++;
+				trace.putMetric(each.getName(), TimeUnit.NANOSECONDS.toMillis(each.getDurationNanos()));
+			}
+			trace.stop();
+		}
+	}
+
+	private static String createReport(String activityName, List<StartupPhase> finishedPhases) {
+		try {
+			JSONObject jsonObject = new JSONObject();
+			jsonObject.put("origin", PROCESS_START_ORIGIN ? "processStart" : "firstPhase");
+			jsonObject.put("firstActivity", activityName);
+			jsonObject.put("totalMicros", getOffsetMicros(finishNanos));
+			JSONArray phasesJsonArray = new JSONArray();
+			for (StartupPhase each : finishedPhases) {
+				JSONObject phaseJsonObject = new JSONObject();
+				phaseJsonObject.put("name", each.getName());
+				phaseJsonObject.put("thread", each.getThreadName());
+				phaseJsonObject.put("startMicros", getOffsetMicros(each.getStartNanos()));
+				phaseJsonObject.put("durationMicros", TimeUnit.NANOSECONDS.toMicros(each.getDurationNanos()));
+				phasesJsonArray.put(phaseJsonObject);
+			}
+			jsonObject.put("phases", phasesJsonArray);
+			return jsonObject.toString();
+		} catch (JSONException e) {
+			throw new UnexpectedException(e);
+		}
+	}
+
+	/**
+	 * @return the JSON report of the finished timeline, or null if the first activity was not resumed yet
+	 */
+	@Nullable
+	public static synchronized String getReport() {
+		return report;
+	}
+
+	private static long getOffsetMillis(long nanos) {
+		return TimeUnit.NANOSECONDS.toMillis(nanos - ORIGIN_NANOS);
+	}
+
+	private static long getOffsetMicros(long nanos) {
+		return TimeUnit.NANOSECONDS.toMicros(nanos - ORIGIN_NANOS);
+	}
+}
@@ -4,7 +4,7 @@ import android.view.View;
 import android.view.View.OnClickListener;
 
 import com.jdroid.android.usecase.AbstractUseCase;
-import com.jdroid.java.concurrent.ExecutorUtils;
+import com.jdroid.android.usecase.UseCaseHelper;
 
 /**
  * {@link OnClickListener} that execute a {@link AbstractUseCase}
@@ -12,12 +12,22 @@ import com.jdroid.java.concurrent.ExecutorUtils;
 public class UseCaseOnClickListener implements OnClickListener {
 	
 	private AbstractUseCase useCase;
+	private Object owner;
 	
 	/**
 	 * @param useCase The {@link AbstractUseCase} to execute
 	 */
 	public UseCaseOnClickListener(AbstractUseCase useCase) {
+		this(useCase, null);
+	}
+	
+	/**
+	 * @param useCase The {@link AbstractUseCase} to execute
+	 * @param owner The object which owns the executions, usually a fragment
+	 */
+	public UseCaseOnClickListener(AbstractUseCase useCase, Object owner) {
 		this.useCase = useCase;
+		this.owner = owner;
 	}
 	
 	/**
@@ -25,7 +35,7 @@ public class UseCaseOnClickListener implements OnClickListener {
 	 */
 	@Override
 	public final void onClick(final View view) {
-		ExecutorUtils.execute(useCase);
+		UseCaseHelper.executeUseCase(useCase, owner);
 	}
 	
 }
@@ -0,0 +1,167 @@
+package com.jdroid.android.log;
+
+import com.jdroid.android.application.AbstractApplication;
+import com.jdroid.java.collections.Lists;
+import com.jdroid.java.concurrent.LowPriorityThreadFactory;
+import com.jdroid.java.date.DateUtils;
+import com.jdroid.java.repository.Repository;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stores the {@link DatabaseLog}s of all the {@link DatabaseLogger}s on a single low priority thread. The logs are
+ * enqueued on a bounded buffer and coalesced, so each batch is stored on a single transaction. When the buffer is full,
+ * the oldest logs are dropped. The Log table is periodically trimmed to a max amount of rows and a max age.
+ */
+public class DatabaseLogWriter {
+	
+	private static final int DEFAULT_CAPACITY = 2000;
+	private static final int DEFAULT_MAX_BATCH_SIZE = 200;
+	private static final long DEFAULT_FLUSH_WINDOW_MILLIS = 500;
+	private static final long DEFAULT_MAX_ROWS = 10000;
+	private static final long DEFAULT_MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(7);
+	private static final long RETENTION_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+	
+	private static final DatabaseLogWriter INSTANCE = new DatabaseLogWriter(DEFAULT_CAPACITY);
+	
+	private BlockingQueue<DatabaseLog> queue;
+	private Executor executor = Executors.newSingleThreadExecutor(new LowPriorityThreadFactory("database-logs"));
+	private boolean started = false;
+	
+	private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+	private long flushWindowMillis = DEFAULT_FLUSH_WINDOW_MILLIS;
+	private long maxRows = DEFAULT_MAX_ROWS;
+	private long maxAgeMillis = DEFAULT_MAX_AGE_MILLIS;
+	private long lastRetentionTimestamp = 0;
+	
+	private AtomicLong droppedLogs = new AtomicLong();
+	
+	public static DatabaseLogWriter get() {
+		return INSTANCE;
+	}
+	
+	private DatabaseLogWriter(int capacity) {
+		queue = new ArrayBlockingQueue<>(capacity);
+	}
+	
+	/**
+	 * Enqueues a message to be stored. It never blocks the caller: if the buffer is full, the oldest message is dropped.
+	 * 
+	 * @param message the message to store.
+	 */
+	public void write(String message) {
+		DatabaseLog databaseLog = new DatabaseLog(message);
+		while (!queue.offer(databaseLog)) {
+			if (queue.poll() != null) {
+				droppedLogs.incrementAndGet();
+			}
+		}
+		start();
+	}
+	
+	private synchronized void start() {
+		if (!started) {
+			started = true;
+			executor.execute(new Runnable() {
+				
+				@Override
+				public void run() {
+					processQueue();
+				}
+			});
+		}
+	}
+	
+	private void processQueue() {
+		List<DatabaseLog> batch = Lists.newArrayList();
+		try {
+			while (true) {
+				batch.add(queue.take());
+				long deadline = DateUtils.nowMillis() + flushWindowMillis;
+				while (batch.size() < maxBatchSize) {
+					long remaining = deadline - DateUtils.nowMillis();
+					if (remaining <= 0) {
+						break;
+					}
+					DatabaseLog databaseLog = queue.poll(remaining, TimeUnit.MILLISECONDS);
+					if (databaseLog == null) {
+						break;
+					}
+					batch.add(databaseLog);
+					queue.drainTo(batch, maxBatchSize - batch.size());
+				}
+				flush(batch);
+				batch.clear();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			if (!batch.isEmpty()) {
+				flush(batch);
+			}
+		} finally {
+			// The thread is started again on the next write
+			synchronized (this) {
+				started = false;
+			}
+		}
+	}
+	
+	private void flush(List<DatabaseLog> batch) {
+		try {
+			Repository<DatabaseLog> repository = AbstractApplication.get().getRepositoryInstance(DatabaseLog.class);
+			if (repository != null) {
+				repository.addAll(batch);
+				
+				long now = DateUtils.nowMillis();
+				if (repository instanceof DatabaseLogsRepository && now - lastRetentionTimestamp > RETENTION_INTERVAL_MILLIS) {
+					lastRetentionTimestamp = now;
+					((DatabaseLogsRepository)repository).trim(maxRows, new Date(now - maxAgeMillis));
+				}
+			}
+		} catch (Exception e) {
+			AbstractApplication.get().getExceptionHandler().logHandledException(e);
+		}
+	}
+	
+	/**
+	 * @param maxBatchSize max amount of logs stored on a single transaction
+	 */
+	public void setMaxBatchSize(int maxBatchSize) {
+		this.maxBatchSize = maxBatchSize;
+	}
+	
+	/**
+	 * @param flushWindowMillis max time to wait for more logs before storing a batch
+	 */
+	public void setFlushWindowMillis(long flushWindowMillis) {
+		this.flushWindowMillis = flushWindowMillis;
+	}
+	
+	/**
+	 * @param maxRows max amount of rows kept on the Log table
+	 */
+	public void setMaxRows(long maxRows) {
+		this.maxRows = maxRows;
+	}
+	
+	/**
+	 * @param maxAgeMillis max age of the rows kept on the Log table
+	 */
+	public void setMaxAgeMillis(long maxAgeMillis) {
+		this.maxAgeMillis = maxAgeMillis;
+	}
+	
+	/**
+	 * @return the amount of logs dropped because the buffer was full
+	 */
+	public long getDroppedLogs() {
+		return droppedLogs.get();
+	}
+}
@@ -1,19 +1,11 @@
 package com.jdroid.android.log;
 
-import com.jdroid.android.application.AbstractApplication;
-import com.jdroid.java.concurrent.LowPriorityThreadFactory;
-import com.jdroid.java.repository.Repository;
-
 import org.slf4j.Logger;
 import org.slf4j.Marker;
 
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
-
 public class DatabaseLogger implements Logger {
 	
 	private Logger wrappedLogger;
-	private Executor executor = Executors.newFixedThreadPool(1, new LowPriorityThreadFactory());
 	
 	public DatabaseLogger(Logger wrappedLogger) {
 		this.wrappedLogger = wrappedLogger;
@@ -344,20 +336,7 @@ public class DatabaseLogger implements Logger {
 		log(msg);
 	}
 
-	private void log(final String message) {
-		executor.execute(new Runnable() {
-
-			@Override
-			public void run() {
-				try {
-					Repository<DatabaseLog> repository = AbstractApplication.get().getRepositoryInstance(DatabaseLog.class);
-					if (repository != null) {
-						repository.add(new DatabaseLog(message));
-					}
-				} catch (Exception e) {
-					AbstractApplication.get().getExceptionHandler().logHandledException(e);
-				}
-			}
-		});
+	private void log(String message) {
+		DatabaseLogWriter.get().write(message);
 	}
 }
@@ -2,12 +2,19 @@ package com.jdroid.android.log;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
 
 import com.jdroid.android.sqlite.repository.SQLiteRepository;
 import com.jdroid.android.sqlite.Column;
+import com.jdroid.android.sqlite.DataType;
 import com.jdroid.android.sqlite.SQLiteHelper;
+import com.jdroid.java.date.DateTimeFormat;
+import com.jdroid.java.date.DateUtils;
+import com.jdroid.java.collections.Lists;
 
 import java.util.Date;
+import java.util.List;
 
 public class DatabaseLogsRepository extends SQLiteRepository<DatabaseLog> {
 
@@ -30,13 +37,30 @@ public class DatabaseLogsRepository extends SQLiteRepository<DatabaseLog> {
 	protected Column[] getColumns() {
 		return DatabaseLogsColumns.values();
 	}
+	
+	/**
+	 * @see SQLiteRepository#getIndexedColumns()
+	 */
+	@Override
+	protected List<Column> getIndexedColumns() {
+		List<Column> indexedColumns = Lists.newArrayList();
+		indexedColumns.add(DatabaseLogsColumns.DATE_TIME);
+		return indexedColumns;
+	}
 
 	/**
 	 * @see SQLiteRepository#createObjectFromCursor(Cursor)
 	 */
 	@Override
 	protected DatabaseLog createObjectFromCursor(Cursor cursor) {
-		DatabaseLog log = new DatabaseLog();
+		return populateObjectFromCursor(cursor, null);
+	}
+	
+	@Override
+	protected DatabaseLog populateObjectFromCursor(Cursor cursor, DatabaseLog log) {
+		if (log == null) {
+			log = new DatabaseLog();
+		}
 		log.setId((String)DatabaseLogsColumns.ID.readValue(cursor));
 		log.setMessage(DatabaseLogsColumns.MESSAGE.readValue(cursor).toString());
 		log.setDateTime((Date)DatabaseLogsColumns.DATE_TIME.readValue(cursor));
@@ -52,4 +76,37 @@ public class DatabaseLogsRepository extends SQLiteRepository<DatabaseLog> {
 		return values;
 	}
 	
+	@Override
+	protected boolean isFullRowBindingEnabled() {
+		return true;
+	}
+	
+	@Override
+	protected void bindObject(SQLiteStatement statement, Column[] columns, DatabaseLog item) {
+		// The id is bound as text, so the column affinity converts it to integer
+		DataType.TEXT.bindValue(statement, DatabaseLogsColumns.ID.ordinal() + 1, item.getId());
+		DatabaseLogsColumns.MESSAGE.getDataType().bindValue(statement, DatabaseLogsColumns.MESSAGE.ordinal() + 1, item.getMessage());
+		DatabaseLogsColumns.DATE_TIME.getDataType().bindValue(statement, DatabaseLogsColumns.DATE_TIME.ordinal() + 1, item.getDateTime());
+	}
+	
+	/**
+	 * Deletes the oldest logs, so the table keeps at most the given amount of rows and no rows older than the given date.
+	 * 
+	 * @param maxRows max amount of rows to keep.
+	 * @param minDateTime date of the oldest row to keep.
+	 * @return the amount of deleted rows.
+	 */
+	public int trim(long maxRows, Date minDateTime) {
+		@SuppressWarnings("resource")
+		SQLiteDatabase db = dbHelper.getWritableDatabase();
+		int deleted = db.delete(getTableName(), DatabaseLogsColumns.DATE_TIME.getColumnName() + " < ?",
+			new String[] { DateUtils.format(minDateTime, DateTimeFormat.YYYYMMDDHHMMSSSSS) });
+		// The ids are autoincrement, so the rows with the lower ids are the oldest ones
+		long maxId = getMaxLong(DatabaseLogsColumns.ID.getColumnName(), null);
+		if (maxId > maxRows) {
+			deleted += db.delete(getTableName(), DatabaseLogsColumns.ID.getColumnName() + " <= ?",
+				new String[] { String.valueOf(maxId - maxRows) });
+		}
+		return deleted;
+	}
 }
@@ -152,7 +152,8 @@ public class PictureDialogFragment extends AbstractDialogFragment {
 		
 		// Create a media file name
 		String timeStamp = DateUtils.format(DateUtils.now(), "yyyyMMdd_HHmmss");
-		File mediaFile = new File(mediaStorageDir.getPath() + File.separator + "IMG_" + timeStamp + ".png");
+		// The camera apps store the pictures as JPEG
+		File mediaFile = new File(mediaStorageDir.getPath() + File.separator + "IMG_" + timeStamp + ".jpg");
 		
 		return Uri.fromFile(mediaFile);
 	}
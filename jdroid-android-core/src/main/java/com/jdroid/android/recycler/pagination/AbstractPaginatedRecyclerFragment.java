@@ -104,7 +104,7 @@ public abstract class AbstractPaginatedRecyclerFragment extends AbstractRecycler
 					dismissLoading();
 				}
 				paginatedUseCase.markAsPaginating();
-				UseCaseHelper.executeUseCase(paginatedUseCase);
+				UseCaseHelper.executeUseCase(paginatedUseCase, this);
 			} else {
 				initAdapter();
 				dismissLoading();
@@ -132,7 +132,7 @@ public abstract class AbstractPaginatedRecyclerFragment extends AbstractRecycler
 						if ((visibleItemCount + firstVisibleItemPosition) >= totalItemCount - getItemsRemainingToStartPagination()
 								&& firstVisibleItemPosition >= 0) {
 							paginatedUseCase.markAsPaginating();
-							UseCaseHelper.executeUseCase(paginatedUseCase);
+							UseCaseHelper.executeUseCase(paginatedUseCase, AbstractPaginatedRecyclerFragment.this);
 							paginationInProgress = true;
 						}
 					}
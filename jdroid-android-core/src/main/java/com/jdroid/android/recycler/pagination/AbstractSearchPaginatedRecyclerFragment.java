@@ -191,7 +191,7 @@ public abstract class AbstractSearchPaginatedRecyclerFragment extends AbstractPa
 		if (!isInstantSearchEnabled() && getAdapter() != null) {
 			getAdapter().clear();
 		}
-		UseCaseHelper.executeUseCase(getSearchUseCase());
+		UseCaseHelper.executeUseCase(getSearchUseCase(), this);
 	}
 	
 	@Override
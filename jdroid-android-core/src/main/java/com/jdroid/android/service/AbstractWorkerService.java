@@ -38,6 +38,7 @@ public abstract class AbstractWorkerService extends IntentService {
 				if (timingTrackingEnabled()) {
 					trace = TraceHelper.startTrace(tag);
 				}
+				AbstractApplication.get().getAppModuleRegistry().onJobStarted(tag);
 				logger.info("Executing service.");
 				long startTime = DateUtils.nowMillis();
 				doExecute(intent);
@@ -0,0 +1,71 @@
+package com.jdroid.android.sqlite;
+
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+/**
+ * Keeps a compiled {@link SQLiteStatement} to be reused between executions, so the SQL is parsed only once per
+ * database connection.
+ *
+ * The statement is lent exclusively to one caller at a time. If it is already lent, a new one is compiled for the
+ * caller, so concurrent writers never wait for each other on the statement itself.
+ */
+public class CachedSQLiteStatement {
+
+	private String sql;
+	private SQLiteStatement statement;
+	private SQLiteDatabase database;
+
+	public CachedSQLiteStatement(String sql) {
+		this.sql = sql;
+	}
+
+	/**
+	 * Returns a statement compiled for the given database. It should be returned using
+	 * {@link #release(SQLiteDatabase, SQLiteStatement)} once it is not used anymore.
+	 *
+	 * @param db Database.
+	 * @return the compiled statement, with its bindings cleared.
+	 */
+	public SQLiteStatement acquire(SQLiteDatabase db) {
+		SQLiteStatement cachedStatement = null;
+		synchronized (this) {
+			if (statement != null) {
+				if (database == db && db.isOpen()) {
+					cachedStatement = statement;
+				} else {
+					statement.close();
+				}
+				statement = null;
+				database = null;
+			}
+		}
+		if (cachedStatement == null) {
+			cachedStatement = db.compileStatement(sql);
+		} else {
+			cachedStatement.clearBindings();
+		}
+		return cachedStatement;
+	}
+
+	/**
+	 * Returns a statement previously acquired, so it can be reused by the next caller.
+	 *
+	 * @param db Database used to compile the statement.
+	 * @param sqLiteStatement statement to release.
+	 */
+	public void release(SQLiteDatabase db, SQLiteStatement sqLiteStatement) {
+		synchronized (this) {
+			if (statement == null && db.isOpen()) {
+				statement = sqLiteStatement;
+				database = db;
+				return;
+			}
+		}
+		sqLiteStatement.close();
+	}
+
+	public String getSql() {
+		return sql;
+	}
+}
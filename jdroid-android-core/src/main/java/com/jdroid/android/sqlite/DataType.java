@@ -2,6 +2,7 @@ package com.jdroid.android.sqlite;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.sqlite.SQLiteProgram;
 
 import com.jdroid.android.utils.AndroidEncryptionUtils;
 import com.jdroid.java.date.DateTimeFormat;
@@ -26,6 +27,15 @@ public enum DataType {
 			}
 		}
 		
+		@Override
+		public <T> void bindValue(SQLiteProgram program, int index, T value) {
+			if (value != null) {
+				program.bindString(index, (String)value);
+			} else {
+				program.bindNull(index);
+			}
+		}
+		
 		@SuppressWarnings("unchecked")
 		@Override
 		public String readValue(Cursor cursor, String columnName) {
@@ -47,6 +57,15 @@ public enum DataType {
 			}
 		}
 		
+		@Override
+		public <T> void bindValue(SQLiteProgram program, int index, T value) {
+			if (value != null) {
+				program.bindLong(index, ((Number)value).intValue());
+			} else {
+				program.bindNull(index);
+			}
+		}
+		
 		@SuppressWarnings("unchecked")
 		@Override
 		public Integer readValue(Cursor cursor, String columnName) {
@@ -68,6 +87,15 @@ public enum DataType {
 			}
 		}
 		
+		@Override
+		public <T> void bindValue(SQLiteProgram program, int index, T value) {
+			if (value != null) {
+				program.bindLong(index, ((Number)value).longValue());
+			} else {
+				program.bindNull(index);
+			}
+		}
+		
 		@SuppressWarnings("unchecked")
 		@Override
 		public Long readValue(Cursor cursor, String columnName) {
@@ -89,6 +117,15 @@ public enum DataType {
 			}
 		}
 		
+		@Override
+		public <T> void bindValue(SQLiteProgram program, int index, T value) {
+			if (value != null) {
+				program.bindDouble(index, ((Number)value).doubleValue());
+			} else {
+				program.bindNull(index);
+			}
+		}
+		
 		@SuppressWarnings("unchecked")
 		@Override
 		public Double readValue(Cursor cursor, String columnName) {
@@ -110,6 +147,15 @@ public enum DataType {
 			}
 		}
 		
+		@Override
+		public <T> void bindValue(SQLiteProgram program, int index, T value) {
+			if (value != null) {
+				program.bindDouble(index, ((Number)value).floatValue());
+			} else {
+				program.bindNull(index);
+			}
+		}
+		
 		@SuppressWarnings("unchecked")
 		@Override
 		public Float readValue(Cursor cursor, String columnName) {
@@ -131,6 +177,15 @@ public enum DataType {
 			}
 		}
 		
+		@Override
+		public <T> void bindValue(SQLiteProgram program, int index, T value) {
+			if (value != null) {
+				program.bindBlob(index, (byte[])value);
+			} else {
+				program.bindNull(index);
+			}
+		}
+		
 		@SuppressWarnings("unchecked")
 		@Override
 		public byte[] readValue(Cursor cursor, String columnName) {
@@ -152,6 +207,15 @@ public enum DataType {
 			}
 		}
 		
+		@Override
+		public <T> void bindValue(SQLiteProgram program, int index, T value) {
+			if (value != null) {
+				program.bindLong(index, ((Boolean)value) ? 1 : 0);
+			} else {
+				program.bindNull(index);
+			}
+		}
+		
 		@SuppressWarnings("unchecked")
 		@Override
 		public Boolean readValue(Cursor cursor, String columnName) {
@@ -173,6 +237,15 @@ public enum DataType {
 			}
 		}
 		
+		@Override
+		public <T> void bindValue(SQLiteProgram program, int index, T value) {
+			if (value != null) {
+				program.bindString(index, DateUtils.format((Date)value, DateTimeFormat.YYYYMMDDHHMMSS));
+			} else {
+				program.bindNull(index);
+			}
+		}
+		
 		@SuppressWarnings("unchecked")
 		@Override
 		public Date readValue(Cursor cursor, String columnName) {
@@ -196,6 +269,15 @@ public enum DataType {
 			}
 		}
 		
+		@Override
+		public <T> void bindValue(SQLiteProgram program, int index, T value) {
+			if (value != null) {
+				program.bindString(index, DateUtils.format((Date)value, DateTimeFormat.YYYYMMDDHHMMSSSSS));
+			} else {
+				program.bindNull(index);
+			}
+		}
+		
 		@SuppressWarnings("unchecked")
 		@Override
 		public Date readValue(Cursor cursor, String columnName) {
@@ -219,6 +301,15 @@ public enum DataType {
 			}
 		}
 		
+		@Override
+		public <T> void bindValue(SQLiteProgram program, int index, T value) {
+			if (value != null) {
+				program.bindString(index, DateUtils.format((Date)value, DateTimeFormat.YYYYMMDDHHMMSSZ));
+			} else {
+				program.bindNull(index);
+			}
+		}
+		
 		@SuppressWarnings("unchecked")
 		@Override
 		public Date readValue(Cursor cursor, String columnName) {
@@ -242,6 +333,15 @@ public enum DataType {
 			}
 		}
 		
+		@Override
+		public <T> void bindValue(SQLiteProgram program, int index, T value) {
+			if (value != null) {
+				program.bindString(index, AndroidEncryptionUtils.encrypt((String)value));
+			} else {
+				program.bindNull(index);
+			}
+		}
+		
 		@SuppressWarnings("unchecked")
 		@Override
 		public String readValue(Cursor cursor, String columnName) {
@@ -263,6 +363,15 @@ public enum DataType {
 			}
 		}
 		
+		@Override
+		public <T> void bindValue(SQLiteProgram program, int index, T value) {
+			if (value != null) {
+				program.bindString(index, StringUtils.join((List<?>)value));
+			} else {
+				program.bindNull(index);
+			}
+		}
+		
 		@SuppressWarnings("unchecked")
 		@Override
 		public List<String> readValue(Cursor cursor, String columnName) {
@@ -284,6 +393,15 @@ public enum DataType {
 			}
 		}
 		
+		@Override
+		public <T> void bindValue(SQLiteProgram program, int index, T value) {
+			if (value != null) {
+				program.bindString(index, new JSONObject((Map<?, ?>)value).toString());
+			} else {
+				program.bindNull(index);
+			}
+		}
+		
 		@SuppressWarnings("unchecked")
 		@Override
 		public JSONObject readValue(Cursor cursor, String columnName) {
@@ -316,5 +434,15 @@ public enum DataType {
 	
 	public abstract <T> void writeValue(ContentValues values, String columnName, T value);
 	
+	/**
+	 * Binds the given value to a compiled statement, applying the same conversion used by
+	 * {@link #writeValue(ContentValues, String, Object)}.
+	 * 
+	 * @param program compiled statement.
+	 * @param index 1-based index of the parameter to bind.
+	 * @param value to bind.
+	 */
+	public abstract <T> void bindValue(SQLiteProgram program, int index, T value);
+	
 	public abstract <T> T readValue(Cursor cursor, String columnName);
 }
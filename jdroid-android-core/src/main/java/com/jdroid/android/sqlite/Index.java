@@ -0,0 +1,66 @@
+package com.jdroid.android.sqlite;
+
+/**
+ * Represents a secondary index definition. It allows to declare composite indexes (more than one column) and partial
+ * indexes (with a WHERE clause).
+ */
+public class Index {
+	
+	private String name;
+	private Column[] columns;
+	private String where;
+	
+	public Index(String name, Column... columns) {
+		this(name, null, columns);
+	}
+	
+	public Index(String name, String where, Column... columns) {
+		this.name = name;
+		this.where = where;
+		this.columns = columns;
+	}
+	
+	/**
+	 * @return the index name
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * @return the indexed columns, in order
+	 */
+	public Column[] getColumns() {
+		return columns;
+	}
+	
+	/**
+	 * @return the WHERE clause of a partial index, or null if all the rows are indexed
+	 */
+	public String getWhere() {
+		return where;
+	}
+	
+	/**
+	 * Creates the SQL statement to create the index.
+	 * 
+	 * @param tableName name of the indexed table.
+	 * @return SQL statement.
+	 */
+	public String getCreateIndexSQL(String tableName) {
+		StringBuilder builder = new StringBuilder();
+		builder.append("CREATE INDEX IF NOT EXISTS ").append(name).append(" ON ").append(tableName).append("(");
+		for (int i = 0; i < columns.length; i++) {
+			if (i > 0) {
+				builder.append(", ");
+			}
+			builder.append(columns[i].getColumnName());
+		}
+		builder.append(")");
+		if (where != null) {
+			builder.append(" WHERE ").append(where);
+		}
+		builder.append(";");
+		return builder.toString();
+	}
+}
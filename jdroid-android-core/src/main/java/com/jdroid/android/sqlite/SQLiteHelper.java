@@ -1,18 +1,21 @@
 package com.jdroid.android.sqlite;
 
 import android.content.Context;
+import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
 
 import com.jdroid.android.utils.AppUtils;
 import com.jdroid.java.collections.Lists;
-import com.jdroid.java.collections.Sets;
+import com.jdroid.java.collections.Maps;
 import com.jdroid.java.utils.LoggerUtils;
 
 import org.slf4j.Logger;
 
 import java.io.File;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class SQLiteHelper extends SQLiteOpenHelper {
@@ -20,15 +23,65 @@ public class SQLiteHelper extends SQLiteOpenHelper {
 	private final static Logger LOGGER = LoggerUtils.getLogger(SQLiteHelper.class);
 	private final static String DB_NAME = "application.db";
 	
-	private Set<String> createSQLs = Sets.newHashSet();
+	private Set<String> createSQLs = new LinkedHashSet<>();
 	private List<SQLiteUpgradeStep> upgradeSteps = Lists.newArrayList();
 	
+	private String synchronous = "NORMAL";
+	private Integer cacheSize;
+	private Long mmapSize;
+	private String tempStore = "MEMORY";
+	
 	public SQLiteHelper(Context context) {
 		super(context, DB_NAME, null, AppUtils.getVersionCode());
+		
+		// Write-ahead logging allows the reads to run concurrently with the writes
+		setWriteAheadLoggingEnabled(true);
+	}
+	
+	/**
+	 * Sets the value of PRAGMA synchronous (OFF, NORMAL, FULL or EXTRA). By default it is NORMAL, which is safe on
+	 * write-ahead logging mode. Null to use the SQLite default.
+	 * 
+	 * @param synchronous the synchronous mode
+	 */
+	public void setSynchronous(String synchronous) {
+		this.synchronous = synchronous;
+	}
+	
+	/**
+	 * Sets the value of PRAGMA cache_size. Positive values are pages and negative values are KiB. By default it is
+	 * null, so the SQLite default is used. It is applied to the primary connection only, see
+	 * {@link #onConfigure(SQLiteDatabase)}.
+	 * 
+	 * @param cacheSize the cache size
+	 */
+	public void setCacheSize(Integer cacheSize) {
+		this.cacheSize = cacheSize;
+	}
+	
+	/**
+	 * Sets the value of PRAGMA mmap_size, in bytes. By default it is null, so the SQLite default is used. It is
+	 * applied to the primary connection only, see {@link #onConfigure(SQLiteDatabase)}.
+	 * 
+	 * @param mmapSize the max amount of bytes to memory map
+	 */
+	public void setMmapSize(Long mmapSize) {
+		this.mmapSize = mmapSize;
+	}
+	
+	/**
+	 * Sets the value of PRAGMA temp_store (DEFAULT, FILE or MEMORY). By default it is MEMORY. Null to use the SQLite
+	 * default. It is applied to the primary connection only, see {@link #onConfigure(SQLiteDatabase)}.
+	 * 
+	 * @param tempStore the temp store mode
+	 */
+	public void setTempStore(String tempStore) {
+		this.tempStore = tempStore;
 	}
 	
 	/**
-	 * Add a creation SQL statement to be executed in {@link SQLiteHelper#onCreate(SQLiteDatabase)} method.
+	 * Add a creation SQL statement to be executed in {@link SQLiteHelper#onCreate(SQLiteDatabase)} method. The
+	 * statements are executed in the same order they are added.
 	 * 
 	 * @param sql creation statement
 	 */
@@ -71,6 +124,21 @@ public class SQLiteHelper extends SQLiteOpenHelper {
 		}
 	}
 	
+	/**
+	 * Applies the pragmas to the primary connection, which runs all the writes and the reads inside transactions. The
+	 * framework doesn't expose a hook to configure the reader connections opened by the write-ahead logging pool, so
+	 * those connections keep the SQLite defaults. The synchronous mode only affects the writes, so it is always in
+	 * effect, but the cache_size, mmap_size and temp_store values only apply to the reads on the primary connection.
+	 */
+	@Override
+	public void onConfigure(SQLiteDatabase db) {
+		super.onConfigure(db);
+		executePragma(db, "synchronous", synchronous);
+		executePragma(db, "cache_size", cacheSize);
+		executePragma(db, "mmap_size", mmapSize);
+		executePragma(db, "temp_store", tempStore);
+	}
+	
 	@Override
 	public void onOpen(SQLiteDatabase db) {
 		super.onOpen(db);
@@ -78,6 +146,56 @@ public class SQLiteHelper extends SQLiteOpenHelper {
 			// Enable foreign key constraints support
 			db.execSQL("PRAGMA foreign_keys=ON;");
 		}
+		if (LOGGER.isDebugEnabled()) {
+			LOGGER.debug("Database settings: " + getEffectiveSettings(db));
+		}
+	}
+	
+	private void executePragma(SQLiteDatabase db, String pragma, Object value) {
+		if (value != null) {
+			// Some pragmas return the new value as a row, so they can't be executed with execSQL
+			Cursor cursor = db.rawQuery("PRAGMA " + pragma + "=" + value, null);
+			try {
+				cursor.moveToFirst();
+			} finally {
+				cursor.close();
+			}
+		}
+	}
+	
+	/**
+	 * Returns the settings in effect for the database, queried from SQLite on the primary connection, where the
+	 * pragmas are applied. The journal_mode should be "wal" for the reads to run concurrently with the writes.
+	 * 
+	 * @return the settings, by pragma name.
+	 */
+	public Map<String, String> getEffectiveSettings() {
+		return getEffectiveSettings(getWritableDatabase());
+	}
+	
+	private Map<String, String> getEffectiveSettings(SQLiteDatabase db) {
+		Map<String, String> settings = Maps.newLinkedHashMap();
+		// The transaction binds the queries to the primary connection, instead of any connection of the pool
+		boolean transaction = !db.isReadOnly();
+		if (transaction) {
+			db.beginTransactionNonExclusive();
+		}
+		try {
+			for (String pragma : new String[] { "journal_mode", "synchronous", "cache_size", "mmap_size", "temp_store", "foreign_keys" }) {
+				Cursor cursor = db.rawQuery("PRAGMA " + pragma, null);
+				try {
+					settings.put(pragma, cursor.moveToFirst() ? cursor.getString(0) : null);
+				} finally {
+					cursor.close();
+				}
+			}
+		} finally {
+			if (transaction) {
+				db.endTransaction();
+			}
+		}
+		settings.put("writeAheadLogging", String.valueOf(db.isWriteAheadLoggingEnabled()));
+		return settings;
 	}
 	
 	/**
@@ -0,0 +1,69 @@
+package com.jdroid.android.sqlite;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.jdroid.android.context.BuildConfigUtils;
+import com.jdroid.android.utils.AppUtils;
+import com.jdroid.java.collections.Sets;
+import com.jdroid.java.utils.LoggerUtils;
+
+import org.slf4j.Logger;
+
+import java.util.Set;
+
+/**
+ * Debug tool which runs EXPLAIN QUERY PLAN for the queries executed by the repositories and warns about the full table
+ * scans, so the missing indexes can be detected. Each query is only verified the first time it is executed.
+ */
+public class SQLiteQueryPlanChecker {
+	
+	private final static Logger LOGGER = LoggerUtils.getLogger(SQLiteQueryPlanChecker.class);
+	
+	private static final Set<String> CHECKED_SQLS = Sets.newHashSet();
+	
+	/**
+	 * Verifies the query plan of the given query, if the checker is enabled.
+	 * 
+	 * @param db Database.
+	 * @param sql query to verify.
+	 * @param selectionArgs arguments of the query.
+	 */
+	public static void check(SQLiteDatabase db, String sql, String[] selectionArgs) {
+		if (!isQueryPlanCheckEnabled()) {
+			return;
+		}
+		synchronized (CHECKED_SQLS) {
+			if (!CHECKED_SQLS.add(sql)) {
+				return;
+			}
+		}
+		Cursor cursor = null;
+		try {
+			cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, selectionArgs);
+			int detailIndex = cursor.getColumnIndex("detail");
+			while (cursor.moveToNext()) {
+				String detail = cursor.getString(detailIndex);
+				if (detail != null && detail.startsWith("SCAN") && !detail.contains("INDEX")) {
+					LOGGER.warn("Full table scan detected [" + detail + "] on query: " + sql);
+				}
+			}
+		} catch (Exception e) {
+			LOGGER.warn("Error verifying query plan of: " + sql, e);
+		} finally {
+			if (cursor != null) {
+				cursor.close();
+			}
+		}
+	}
+	
+	/**
+	 * The query plan checker is only enabled for non release builds, when the SQLITE_QUERY_PLAN_CHECK_ENABLED build
+	 * config is true.
+	 * 
+	 * @return Whether the query plan checker is enabled or not.
+	 */
+	public static Boolean isQueryPlanCheckEnabled() {
+		return !AppUtils.isReleaseBuildType() && BuildConfigUtils.getBuildConfigBoolean("SQLITE_QUERY_PLAN_CHECK_ENABLED", false);
+	}
+}
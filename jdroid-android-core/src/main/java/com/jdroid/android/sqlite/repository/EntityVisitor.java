@@ -0,0 +1,14 @@
+package com.jdroid.android.sqlite.repository;
+
+import com.jdroid.java.domain.Entity;
+
+public interface EntityVisitor<T extends Entity> {
+	
+	/**
+	 * Called for each entity read from the cursor. When the iteration reuses entity instances, the item should not be
+	 * referenced after this method returns.
+	 *
+	 * @param item loaded entity.
+	 */
+	void visit(T item);
+}
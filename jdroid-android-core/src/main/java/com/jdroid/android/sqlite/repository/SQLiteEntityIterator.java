@@ -0,0 +1,76 @@
+package com.jdroid.android.sqlite.repository;
+
+import android.database.Cursor;
+
+import com.jdroid.java.domain.Entity;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * {@link Iterator} which maps the rows of a {@link Cursor} to entities lazily, one row at a time. The cursor is closed
+ * once all the rows are read, but callers that stop the iteration before should invoke {@link #close()}.
+ *
+ * @param <T> Entity type.
+ */
+public class SQLiteEntityIterator<T extends Entity> implements Iterator<T>, Closeable {
+	
+	private Cursor cursor;
+	private SQLiteRepository<T> repository;
+	private boolean reuseInstance;
+	private T reusableItem;
+	private Boolean hasNext;
+	
+	/**
+	 * @param cursor cursor to iterate.
+	 * @param repository repository used to map each row.
+	 * @param reuseInstance true if the same entity instance should be populated on each row, false if a new one should
+	 *            be created.
+	 */
+	SQLiteEntityIterator(Cursor cursor, SQLiteRepository<T> repository, boolean reuseInstance) {
+		this.cursor = cursor;
+		this.repository = repository;
+		this.reuseInstance = reuseInstance;
+	}
+	
+	@Override
+	public boolean hasNext() {
+		if (hasNext == null) {
+			hasNext = !cursor.isClosed() && cursor.moveToNext();
+			if (!hasNext) {
+				close();
+			}
+		}
+		return hasNext;
+	}
+	
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		hasNext = null;
+		T item;
+		if (reuseInstance) {
+			item = repository.populateObjectFromCursor(cursor, reusableItem);
+			reusableItem = item;
+		} else {
+			item = repository.createObjectFromCursor(cursor);
+		}
+		repository.onLoaded(item);
+		return item;
+	}
+	
+	@Override
+	public void remove() {
+		throw new UnsupportedOperationException();
+	}
+	
+	@Override
+	public void close() {
+		if (!cursor.isClosed()) {
+			cursor.close();
+		}
+	}
+}
@@ -2,22 +2,31 @@ package com.jdroid.android.sqlite.repository;
 
 import android.content.ContentValues;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteQueryBuilder;
+import android.database.sqlite.SQLiteStatement;
 
 import com.jdroid.android.application.AbstractApplication;
+import com.jdroid.android.sqlite.CachedSQLiteStatement;
 import com.jdroid.android.sqlite.Column;
+import com.jdroid.android.sqlite.Index;
 import com.jdroid.android.sqlite.SQLiteHelper;
+import com.jdroid.android.sqlite.SQLiteQueryPlanChecker;
 import com.jdroid.java.collections.Lists;
+import com.jdroid.java.collections.Sets;
 import com.jdroid.java.domain.Entity;
 import com.jdroid.java.repository.Repository;
 import com.jdroid.java.utils.LoggerUtils;
-import com.jdroid.java.utils.StringUtils;
 
 import org.slf4j.Logger;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Repository implementation which uses SQLite.
@@ -28,10 +37,21 @@ public abstract class SQLiteRepository<T extends Entity> implements Repository<T
 	
 	private static final Logger LOGGER = LoggerUtils.getLogger(SQLiteRepository.class);
 	
+	private static final int DEFAULT_BATCH_SIZE = 500;
+	
 	protected SQLiteHelper dbHelper;
 
 	private EntityChildrenListener<T> entityChildrenListener;
 	
+	// Compiled INSERT and UPDATE statements, by the names of the columns they write
+	private Map<String, CachedSQLiteStatement> insertStatements = new ConcurrentHashMap<>();
+	private Map<String, CachedSQLiteStatement> updateStatements = new ConcurrentHashMap<>();
+	// Columns written by the last bulk write, reused while the next entities have the same columns
+	private volatile WriteColumns lastWriteColumns;
+	private CachedSQLiteStatement stagingStatement;
+	private CachedSQLiteStatement countStatement;
+	private CachedSQLiteStatement existsStatement;
+	
 	/**
 	 * Constructor. It register create SQL statements in {@link SQLiteHelper}.
 	 * 
@@ -40,6 +60,9 @@ public abstract class SQLiteRepository<T extends Entity> implements Repository<T
 	public SQLiteRepository(SQLiteHelper dbHelper, EntityChildrenListener<T> entityChildrenListener) {
 		this.dbHelper = dbHelper;
 		this.dbHelper.addCreateSQL(getCreateTableSQL());
+		for (String createIndexSQL : getCreateIndexesSQL()) {
+			this.dbHelper.addCreateSQL(createIndexSQL);
+		}
 		this.entityChildrenListener = entityChildrenListener;
 	}
 
@@ -61,6 +84,25 @@ public abstract class SQLiteRepository<T extends Entity> implements Repository<T
 	 */
 	protected abstract Column[] getColumns();
 	
+	/**
+	 * Returns the columns with a single column secondary index. By default it returns an empty list.
+	 * 
+	 * @return the indexed columns.
+	 */
+	protected List<Column> getIndexedColumns() {
+		return Lists.newArrayList();
+	}
+	
+	/**
+	 * Returns the composite and partial secondary indexes of the table. The single column indexes declared with
+	 * {@link #getIndexedColumns()} don't need to be included. By default it returns an empty list.
+	 * 
+	 * @return the indexes.
+	 */
+	protected List<Index> getIndexes() {
+		return Lists.newArrayList();
+	}
+	
 	/**
 	 * Returns the name of the column used as id By default it returns {@link Column#ID}.
 	 * 
@@ -87,6 +129,19 @@ public abstract class SQLiteRepository<T extends Entity> implements Repository<T
 	 */
 	protected abstract T createObjectFromCursor(Cursor cursor);
 	
+	/**
+	 * Populates an entity instance with data from cursor, allowing to reuse the same instance while iterating a cursor.
+	 * It does NOT populate entity children. By default it ignores the given instance and returns a new one created by
+	 * {@link #createObjectFromCursor(Cursor)}.
+	 * 
+	 * @param cursor cursor to get data.
+	 * @param item instance to populate, or null if there is no instance to reuse yet.
+	 * @return the populated entity instance.
+	 */
+	protected T populateObjectFromCursor(Cursor cursor, T item) {
+		return createObjectFromCursor(cursor);
+	}
+	
 	/**
 	 * Creates and populate an instance of {@link ContentValues} which the entity data.
 	 * 
@@ -95,6 +150,136 @@ public abstract class SQLiteRepository<T extends Entity> implements Repository<T
 	 */
 	protected abstract ContentValues createContentValuesFromObject(T item);
 	
+	/**
+	 * Whether {@link #bindObject(SQLiteStatement, Column[], Entity)} should be used to bind every column of
+	 * {@link #getColumns()} on the bulk writes.
+	 * <p>
+	 * By default it is false, so the statements only write the columns present on
+	 * {@link #createContentValuesFromObject(Entity)}: the missing columns keep their DEFAULT value on insert and are not
+	 * modified on update. The present columns and their compiled statements are reused while the consecutive entities
+	 * have the same columns, so the only allocation per row is the {@link ContentValues}.
+	 * <p>
+	 * When it is true, all the columns are always written, so an absent column is stored as NULL. It should only be
+	 * enabled by the repositories which write every column, and it avoids the {@link ContentValues} too when
+	 * {@link #bindObject(SQLiteStatement, Column[], Entity)} is overridden.
+	 * 
+	 * @return true if all the columns are bound through {@link #bindObject(SQLiteStatement, Column[], Entity)}.
+	 */
+	protected boolean isFullRowBindingEnabled() {
+		return false;
+	}
+	
+	/**
+	 * Binds the entity data to the compiled INSERT and UPDATE statements used for bulk writes, when
+	 * {@link #isFullRowBindingEnabled()} is true. The parameters follow the order of {@link #getColumns()}, and all of
+	 * them should be bound. Repositories with a write intensive usage can override it to bind the values straight through
+	 * {@link com.jdroid.android.sqlite.DataType#bindValue(android.database.sqlite.SQLiteProgram, int, Object)}.
+	 * 
+	 * @param statement compiled statement, with its bindings cleared.
+	 * @param columns columns definitions, as returned by {@link #getColumns()}.
+	 * @param item entity to store.
+	 */
+	protected void bindObject(SQLiteStatement statement, Column[] columns, T item) {
+		bindValues(statement, columns, createContentValuesFromObject(item));
+	}
+	
+	private void bindValues(SQLiteStatement statement, Column[] columns, ContentValues values) {
+		for (int i = 0; i < columns.length; i++) {
+			DatabaseUtils.bindObjectToProgram(statement, i + 1, values.get(columns[i].getColumnName()));
+		}
+	}
+	
+	/**
+	 * Inserts or updates the entity using a compiled statement for the columns to write.
+	 * 
+	 * @param parentId if it is not null, only the row of the entity under this parent is updated.
+	 * @return the row id if it is an insert, or the amount of changed rows if it is an update.
+	 */
+	private long executeWrite(SQLiteDatabase db, Column[] allColumns, T item, boolean insert, String parentId) {
+		ContentValues values = null;
+		WriteColumns writeColumns;
+		if (isFullRowBindingEnabled()) {
+			writeColumns = getWriteColumns(allColumns, null);
+		} else {
+			values = createContentValuesFromObject(item);
+			writeColumns = getWriteColumns(allColumns, values);
+		}
+		Column[] columns = writeColumns.columns;
+		if (!insert && columns.length == 0) {
+			return 0;
+		}
+		CachedSQLiteStatement cachedStatement;
+		if (insert) {
+			if (writeColumns.insertStatement == null) {
+				writeColumns.insertStatement = getInsertStatement(columns);
+			}
+			cachedStatement = writeColumns.insertStatement;
+		} else if (parentId == null) {
+			if (writeColumns.updateStatement == null) {
+				writeColumns.updateStatement = getUpdateStatement(columns, false);
+			}
+			cachedStatement = writeColumns.updateStatement;
+		} else {
+			if (writeColumns.updateByParentStatement == null) {
+				writeColumns.updateByParentStatement = getUpdateStatement(columns, true);
+			}
+			cachedStatement = writeColumns.updateByParentStatement;
+		}
+		SQLiteStatement statement = cachedStatement.acquire(db);
+		try {
+			if (values != null) {
+				bindValues(statement, columns, values);
+			} else {
+				bindObject(statement, columns, item);
+			}
+			if (insert) {
+				return statement.executeInsert();
+			}
+			statement.bindString(columns.length + 1, item.getId());
+			if (parentId != null) {
+				statement.bindString(columns.length + 2, parentId);
+			}
+			return statement.executeUpdateDelete();
+		} finally {
+			cachedStatement.release(db, statement);
+		}
+	}
+	
+	/**
+	 * Returns the columns to write, reusing the last ones if they match.
+	 * 
+	 * @param allColumns columns definitions, as returned by {@link #getColumns()}.
+	 * @param values entity values, or null to write all the columns.
+	 * @return the columns to write.
+	 */
+	private WriteColumns getWriteColumns(Column[] allColumns, ContentValues values) {
+		WriteColumns writeColumns = lastWriteColumns;
+		if (writeColumns != null && writeColumns.matches(allColumns, values)) {
+			return writeColumns;
+		}
+		boolean[] presentFlags = new boolean[allColumns.length];
+		List<Column> presentColumns = Lists.newArrayList();
+		for (int i = 0; i < allColumns.length; i++) {
+			presentFlags[i] = values == null || values.containsKey(allColumns[i].getColumnName());
+			if (presentFlags[i]) {
+				presentColumns.add(allColumns[i]);
+			}
+		}
+		writeColumns = new WriteColumns(presentColumns.toArray(new Column[presentColumns.size()]), presentFlags, values == null);
+		lastWriteColumns = writeColumns;
+		return writeColumns;
+	}
+	
+		/**
+	 * Max amount of rows stored on each transaction by {@link #addAll(Collection)}, when it is not executed inside an
+	 * outer transaction. The batches already committed are kept if a later one fails.
+	 * 
+	 * @return the batch size.
+	 */
+	protected int getBatchSize() {
+		return DEFAULT_BATCH_SIZE;
+	}
+	
 	/**
 	 * Default sort to be used in ORDER BY section of queries.
 	 * 
@@ -170,48 +355,107 @@ public abstract class SQLiteRepository<T extends Entity> implements Repository<T
 		}
 	}
 	
-	@SuppressWarnings("resource")
 	@Override
 	public List<T> getByField(String fieldName, Object... values) {
+		ArrayList<T> items = new ArrayList<>();
+		SQLiteEntityIterator<T> iterator = iterateByField(false, fieldName, values);
+		try {
+			while (iterator.hasNext()) {
+				items.add(iterator.next());
+			}
+		} finally {
+			iterator.close();
+		}
+		LOGGER.trace("Retrieved objects from database [" + items.size() + "] of type: " + getTableName() + ". Field: " + fieldName
+				+ " | Values: " + values);
+		return items;
+	}
+	
+	/**
+	 * Returns an iterator which lazily maps the entities with any of the given values on the field. The iterator should
+	 * be closed if it is not fully consumed.
+	 * 
+	 * @param reuseInstance true if the same entity instance should be populated on each row, using
+	 *            {@link #populateObjectFromCursor(Cursor, Entity)}.
+	 * @param fieldName field name, or null to iterate all the entities.
+	 * @param values field values. If it is empty, the entities with a null value are returned.
+	 * @return the iterator.
+	 */
+	@SuppressWarnings("resource")
+	public SQLiteEntityIterator<T> iterateByField(boolean reuseInstance, String fieldName, Object... values) {
 		SQLiteDatabase db = dbHelper.getReadableDatabase();
-		String selection;
+		String selection = null;
 		String[] selectionArgs = null;
-		if ((values != null) && (values.length > 0)) {
-			selectionArgs = new String[values.length];
-			StringBuilder sb = new StringBuilder(fieldName + " IN (");
-			for (int i = 0; i < values.length; i++) {
-				selectionArgs[i] = values[i].toString();
-				if (i > 0) {
-					sb.append(",");
+		if (fieldName != null) {
+			if ((values != null) && (values.length > 0)) {
+				selectionArgs = new String[values.length];
+				StringBuilder sb = new StringBuilder(fieldName + " IN (");
+				for (int i = 0; i < values.length; i++) {
+					selectionArgs[i] = values[i].toString();
+					if (i > 0) {
+						sb.append(",");
+					}
+					sb.append("?");
 				}
-				sb.append("?");
+				sb.append(")");
+				selection = sb.toString();
+			} else {
+				selection = fieldName + " IS NULL";
 			}
-			sb.append(")");
-			selection = sb.toString();
-		} else {
-			selection = fieldName + " IS NULL";
 		}
-		Cursor cursor = null;
+		if (selection != null && SQLiteQueryPlanChecker.isQueryPlanCheckEnabled()) {
+			SQLiteQueryPlanChecker.check(db, SQLiteQueryBuilder.buildQueryString(false, getTableName(), getProjection(),
+				selection, null, null, getDefaultSort(), null), selectionArgs);
+		}
+		Cursor cursor = db.query(getTableName(), getProjection(), selection, selectionArgs, null, null, getDefaultSort());
+		return new SQLiteEntityIterator<>(cursor, this, reuseInstance);
+	}
+	
+	/**
+	 * Returns an iterator which lazily maps all the entities. The iterator should be closed if it is not fully consumed.
+	 * 
+	 * @param reuseInstance true if the same entity instance should be populated on each row, using
+	 *            {@link #populateObjectFromCursor(Cursor, Entity)}.
+	 * @return the iterator.
+	 */
+	public SQLiteEntityIterator<T> iterateAll(boolean reuseInstance) {
+		return iterateByField(reuseInstance, null);
+	}
+	
+	/**
+	 * Visits the entities with any of the given values on the field, without loading all of them in memory.
+	 * 
+	 * @param visitor visitor called for each entity.
+	 * @param reuseInstance true if the same entity instance should be populated on each row. In that case, the visitor
+	 *            should not keep references to the visited entities.
+	 * @param fieldName field name, or null to visit all the entities.
+	 * @param values field values. If it is empty, the entities with a null value are visited.
+	 */
+	public void forEachByField(EntityVisitor<T> visitor, boolean reuseInstance, String fieldName, Object... values) {
+		SQLiteEntityIterator<T> iterator = iterateByField(reuseInstance, fieldName, values);
 		try {
-			ArrayList<T> items = new ArrayList<>();
-			cursor = db.query(getTableName(), getProjection(), selection, selectionArgs, null, null, getDefaultSort());
-			while (cursor.moveToNext()) {
-				T item = createObjectFromCursor(cursor);
-				if (entityChildrenListener != null) {
-					entityChildrenListener.onLoaded(item);
-				}
-				items.add(item);
+			while (iterator.hasNext()) {
+				visitor.visit(iterator.next());
 			}
-			cursor.close();
-			
-			LOGGER.trace("Retrieved objects from database [" + items.size() + "] of type: " + getTableName() + ". Field: " + fieldName
-					+ " | Values: " + values);
-			
-			return items;
 		} finally {
-			if (cursor != null) {
-				cursor.close();
-			}
+			iterator.close();
+		}
+	}
+	
+	/**
+	 * Visits all the entities, without loading all of them in memory.
+	 * 
+	 * @param visitor visitor called for each entity.
+	 * @param reuseInstance true if the same entity instance should be populated on each row. In that case, the visitor
+	 *            should not keep references to the visited entities.
+	 */
+	public void forEach(EntityVisitor<T> visitor, boolean reuseInstance) {
+		forEachByField(visitor, reuseInstance, null);
+	}
+	
+	void onLoaded(T item) {
+		if (entityChildrenListener != null) {
+			entityChildrenListener.onLoaded(item);
 		}
 	}
 	
@@ -237,21 +481,148 @@ public abstract class SQLiteRepository<T extends Entity> implements Repository<T
 	
 	@Override
 	public Boolean isEmpty() {
-		return getSize() == 0;
+		return !exists(null);
 	}
 	
-	@SuppressWarnings("resource")
 	@Override
 	public Long getSize() {
+		return count(null);
+	}
+	
+	/**
+	 * Counts the rows matching the given selection, using a COUNT(*) query.
+	 * 
+	 * @param selection WHERE clause, or null to count all the rows.
+	 * @param selectionArgs arguments of the selection.
+	 * @return the amount of rows.
+	 */
+	public long count(String selection, String... selectionArgs) {
+		if (selection == null) {
+			return simpleQueryForLong(getCountStatement());
+		}
+		return queryForLong("COUNT(*)", selection, selectionArgs);
+	}
+	
+	/**
+	 * Verifies if there is at least one row matching the given selection, using an EXISTS query. The query stops on
+	 * the first matching row.
+	 * 
+	 * @param selection WHERE clause, or null to verify if the table has any row.
+	 * @param selectionArgs arguments of the selection.
+	 * @return true if there is at least one row.
+	 */
+	public boolean exists(String selection, String... selectionArgs) {
+		if (selection == null) {
+			return simpleQueryForLong(getExistsStatement()) != 0;
+		}
+		StringBuilder builder = new StringBuilder();
+		builder.append("SELECT EXISTS(SELECT 1 FROM ").append(getTableName());
+		builder.append(" WHERE ").append(selection).append(")");
 		SQLiteDatabase db = dbHelper.getReadableDatabase();
-		Cursor cursor = null;
+		return DatabaseUtils.longForQuery(db, builder.toString(), selectionArgs) != 0;
+	}
+	
+	/**
+	 * Returns the minimum value of a numeric column between the rows matching the given selection.
+	 * 
+	 * @param columnName column name.
+	 * @param selection WHERE clause, or null to use all the rows.
+	 * @param selectionArgs arguments of the selection.
+	 * @return the minimum value, or 0 if there are no rows.
+	 */
+	public long getMinLong(String columnName, String selection, String... selectionArgs) {
+		return queryForLong("MIN(" + columnName + ")", selection, selectionArgs);
+	}
+	
+	/**
+	 * Returns the maximum value of a numeric column between the rows matching the given selection.
+	 * 
+	 * @param columnName column name.
+	 * @param selection WHERE clause, or null to use all the rows.
+	 * @param selectionArgs arguments of the selection.
+	 * @return the maximum value, or 0 if there are no rows.
+	 */
+	public long getMaxLong(String columnName, String selection, String... selectionArgs) {
+		return queryForLong("MAX(" + columnName + ")", selection, selectionArgs);
+	}
+	
+	/**
+	 * Returns the minimum value of a text column between the rows matching the given selection. It is useful for the
+	 * date columns, which are stored with a sortable format.
+	 * 
+	 * @param columnName column name.
+	 * @param selection WHERE clause, or null to use all the rows.
+	 * @param selectionArgs arguments of the selection.
+	 * @return the minimum value, or null if there are no rows.
+	 */
+	public String getMinString(String columnName, String selection, String... selectionArgs) {
+		return queryForString("MIN(" + columnName + ")", selection, selectionArgs);
+	}
+	
+	/**
+	 * Returns the maximum value of a text column between the rows matching the given selection. It is useful for the
+	 * date columns, which are stored with a sortable format.
+	 * 
+	 * @param columnName column name.
+	 * @param selection WHERE clause, or null to use all the rows.
+	 * @param selectionArgs arguments of the selection.
+	 * @return the maximum value, or null if there are no rows.
+	 */
+	public String getMaxString(String columnName, String selection, String... selectionArgs) {
+		return queryForString("MAX(" + columnName + ")", selection, selectionArgs);
+	}
+	
+	/**
+	 * Returns the sum of an integer column between the rows matching the given selection.
+	 * 
+	 * @param columnName column name.
+	 * @param selection WHERE clause, or null to use all the rows.
+	 * @param selectionArgs arguments of the selection.
+	 * @return the sum, or 0 if there are no rows.
+	 */
+	public long getSumLong(String columnName, String selection, String... selectionArgs) {
+		return queryForLong("SUM(" + columnName + ")", selection, selectionArgs);
+	}
+	
+	/**
+	 * Returns the sum of a real column between the rows matching the given selection.
+	 * 
+	 * @param columnName column name.
+	 * @param selection WHERE clause, or null to use all the rows.
+	 * @param selectionArgs arguments of the selection.
+	 * @return the sum, or 0 if there are no rows.
+	 */
+	public double getSumDouble(String columnName, String selection, String... selectionArgs) {
+		String sum = queryForString("TOTAL(" + columnName + ")", selection, selectionArgs);
+		return sum != null ? Double.parseDouble(sum) : 0;
+	}
+	
+	private long queryForLong(String aggregate, String selection, String... selectionArgs) {
+		SQLiteDatabase db = dbHelper.getReadableDatabase();
+		return DatabaseUtils.longForQuery(db, getAggregateSQL(aggregate, selection), selectionArgs);
+	}
+	
+	private String queryForString(String aggregate, String selection, String... selectionArgs) {
+		SQLiteDatabase db = dbHelper.getReadableDatabase();
+		return DatabaseUtils.stringForQuery(db, getAggregateSQL(aggregate, selection), selectionArgs);
+	}
+	
+	private String getAggregateSQL(String aggregate, String selection) {
+		StringBuilder builder = new StringBuilder();
+		builder.append("SELECT ").append(aggregate).append(" FROM ").append(getTableName());
+		if (selection != null) {
+			builder.append(" WHERE ").append(selection);
+		}
+		return builder.toString();
+	}
+	
+	private long simpleQueryForLong(CachedSQLiteStatement cachedStatement) {
+		SQLiteDatabase db = dbHelper.getReadableDatabase();
+		SQLiteStatement statement = cachedStatement.acquire(db);
 		try {
-			cursor = db.query(getTableName(), new String[0], null, null, null, null, null);
-			return (long)cursor.getCount();
+			return statement.simpleQueryForLong();
 		} finally {
-			if (cursor != null) {
-				cursor.close();
-			}
+			cachedStatement.release(db, statement);
 		}
 	}
 	
@@ -282,10 +653,27 @@ public abstract class SQLiteRepository<T extends Entity> implements Repository<T
 		SQLiteDatabase db = dbHelper.getWritableDatabase();
 		boolean endTransaction = beginTransaction(db);
 		try {
+			Column[] columns = getColumns();
+			int batchSize = getBatchSize();
+			int pendingRows = 0;
 			for (T item : items) {
-				add(item);
+				long id = executeWrite(db, columns, item, true, null);
+				if (item.getId() == null) {
+					item.setId(Long.toString(id));
+				}
+				if (entityChildrenListener != null) {
+					entityChildrenListener.onStored(item);
+				}
+				pendingRows++;
+				if (endTransaction && pendingRows >= batchSize) {
+					db.setTransactionSuccessful();
+					db.endTransaction();
+					db.beginTransaction();
+					pendingRows = 0;
+					LOGGER.trace("Committed batch of objects of type: " + getTableName());
+				}
 			}
-			LOGGER.trace("Stored objects in database:\n" + items);
+			LOGGER.trace("Stored objects in database [" + items.size() + "] of type: " + getTableName());
 			successTransaction(db, endTransaction);
 		} finally {
 			endTransaction(db, endTransaction);
@@ -312,26 +700,104 @@ public abstract class SQLiteRepository<T extends Entity> implements Repository<T
 	
 	@Override
 	public void replaceAll(Collection<T> items) {
+		replace(items, null);
+		LOGGER.trace("Replaced all objects of type: " + getTableName());
+	}
+	
+	/**
+	 * Replaces the stored entities with the given ones, writing only the needed rows. The incoming ids are staged in a
+	 * temporary table, so the rows to delete are found with a single statement. The entities that already exist are
+	 * updated only if some column changed, and the new ones are inserted. The {@link EntityChildrenListener} is notified
+	 * about all the entities that already exist, even if their row didn't change.
+	 * 
+	 * @param items entities to keep.
+	 * @param parentId if it is not null, only the children of this parent are replaced.
+	 */
+	private void replace(Collection<T> items, String parentId) {
 		@SuppressWarnings("resource")
 		SQLiteDatabase db = dbHelper.getWritableDatabase();
 		boolean endTransaction = beginTransaction(db);
 		try {
-			List<String> idsToKeep = Lists.newArrayList();
-			for (T item : items) {
-				idsToKeep.add(item.getId());
+			String stagingTableName = getStagingTableName();
+			stageIds(db, items);
+			
+			String deleteSelection = getIdColumnName() + " NOT IN (SELECT " + Column.ID + " FROM " + stagingTableName + ")";
+			String[] deleteSelectionArgs = null;
+			if (parentId != null) {
+				deleteSelection = getParentIdColumnName() + "=? AND " + deleteSelection;
+				deleteSelectionArgs = new String[] { parentId };
 			}
-			db.delete(getTableName(), getIdColumnName() + " NOT IN (" + StringUtils.join(idsToKeep) + ")", null);
-			LOGGER.trace("Deleted from database all objects of type: " + getTableName() + " with ids != to " + idsToKeep);
-
+			int deleted = db.delete(getTableName(), deleteSelection, deleteSelectionArgs);
+			
+			// The same id can be used by the children of other parents, so only the rows of this parent are considered
+			String existingSelection = getIdColumnName() + " IN (SELECT " + Column.ID + " FROM " + stagingTableName + ")";
+			String[] existingSelectionArgs = null;
+			if (parentId != null) {
+				existingSelection = getParentIdColumnName() + "=? AND " + existingSelection;
+				existingSelectionArgs = new String[] { parentId };
+			}
+			Set<String> existingIds = Sets.newHashSet();
+			Cursor cursor = db.rawQuery("SELECT " + getIdColumnName() + " FROM " + getTableName() + " WHERE "
+					+ existingSelection, existingSelectionArgs);
+			try {
+				while (cursor.moveToNext()) {
+					existingIds.add(cursor.getString(0));
+				}
+			} finally {
+				cursor.close();
+			}
+			db.delete(stagingTableName, null, null);
+			
+			List<T> newItems = Lists.newArrayList();
+			int updated = 0;
+			Column[] columns = getColumns();
 			for (T item : items) {
-				add(item);
+				if (item.getId() != null && existingIds.contains(item.getId())) {
+					// The update is skipped by the statement when none of the columns changed, but the children are
+					// always stored, as they could have changed anyway
+					updated += executeWrite(db, columns, item, false, parentId);
+					if (entityChildrenListener != null) {
+						entityChildrenListener.onUpdated(item);
+					}
+				} else {
+					newItems.add(item);
+				}
+			}
+			if (!newItems.isEmpty()) {
+				addAll(newItems);
 			}
+			LOGGER.trace("Replaced objects of type: " + getTableName() + ". Deleted: " + deleted + " | Updated: " + updated
+					+ " | Unchanged: " + (existingIds.size() - updated) + " | Inserted: " + newItems.size());
 			successTransaction(db, endTransaction);
 		} finally {
 			endTransaction(db, endTransaction);
 		}
 	}
 	
+	/**
+	 * Stores the ids of the given entities in the staging table. It should be executed inside a transaction, because the
+	 * temporary tables are only visible to the connection which created them.
+	 * 
+	 * @param db Database.
+	 * @param items entities to stage.
+	 */
+	private void stageIds(SQLiteDatabase db, Collection<T> items) {
+		String stagingTableName = getStagingTableName();
+		db.execSQL("CREATE TEMP TABLE IF NOT EXISTS " + stagingTableName + "(" + Column.ID + " PRIMARY KEY)");
+		db.delete(stagingTableName, null, null);
+		SQLiteStatement statement = getStagingStatement().acquire(db);
+		try {
+			for (T item : items) {
+				if (item.getId() != null) {
+					statement.bindString(1, item.getId());
+					statement.executeInsert();
+				}
+			}
+		} finally {
+			getStagingStatement().release(db, statement);
+		}
+	}
+	
 	@Override
 	public void remove(T item) {
 		remove(item.getId());
@@ -399,12 +865,16 @@ public abstract class SQLiteRepository<T extends Entity> implements Repository<T
 	
 	@Override
 	public T getUniqueInstance() {
-		List<T> all = getAll();
-		if (all.isEmpty()) {
-			return null;
+		SQLiteEntityIterator<T> iterator = iterateAll(false);
+		try {
+			if (!iterator.hasNext()) {
+				return null;
+			}
+			LOGGER.trace("Retrieved single instance of type: " + getTableName());
+			return iterator.next();
+		} finally {
+			iterator.close();
 		}
-		LOGGER.trace("Retrieved single instance of type: " + getTableName());
-		return all.get(0);
 	}
 	
 	/**
@@ -418,17 +888,8 @@ public abstract class SQLiteRepository<T extends Entity> implements Repository<T
 		for (T item : list) {
 			item.setParentId(parentId);
 		}
-		@SuppressWarnings("resource")
-		SQLiteDatabase db = dbHelper.getWritableDatabase();
-		boolean endTransaction = beginTransaction(db);
-		try {
-			db.delete(getTableName(), getParentIdColumnName() + "=?", new String[] { parentId });
-			addAll(list);
-			LOGGER.trace("Replaced children of parent " + parentId + " and type " + getTableName());
-			successTransaction(db, endTransaction);
-		} finally {
-			endTransaction(db, endTransaction);
-		}
+		replace(list, parentId);
+		LOGGER.trace("Replaced children of parent " + parentId + " and type " + getTableName());
 	}
 	
 	/**
@@ -490,7 +951,7 @@ public abstract class SQLiteRepository<T extends Entity> implements Repository<T
 	 */
 	private String getCreateTableSQL(String columns, String references, String uniqueColumns) {
 		StringBuilder builder = new StringBuilder();
-		builder.append("CREATE TABLE ").append(getTableName()).append("(");
+		builder.append("CREATE TABLE IF NOT EXISTS ").append(getTableName()).append("(");
 		builder.append(columns);
 		builder.append(references);
 		builder.append("UNIQUE (").append(uniqueColumns).append(") ON CONFLICT REPLACE");
@@ -520,12 +981,146 @@ public abstract class SQLiteRepository<T extends Entity> implements Repository<T
 	}
 	
 	/**
-	 * Returns a list of statements to upgrade the SQL scheme.
+	 * Creates the SQL statements to create the secondary indexes, both the single column ones declared with
+	 * {@link #getIndexedColumns()} and the ones returned by {@link #getIndexes()}.
+	 * 
+	 * @return SQL statements.
+	 */
+	public List<String> getCreateIndexesSQL() {
+		List<String> sqls = Lists.newArrayList();
+		for (Column column : getIndexedColumns()) {
+			Index index = new Index(getTableName() + "_" + column.getColumnName() + "_idx", column);
+			sqls.add(index.getCreateIndexSQL(getTableName()));
+		}
+		for (Index index : getIndexes()) {
+			sqls.add(index.getCreateIndexSQL(getTableName()));
+		}
+		return sqls;
+	}
+	
+	/**
+	 * Returns a list of statements to upgrade the SQL scheme. It creates the table if it doesn't exist and back-fills
+	 * the missing secondary indexes.
 	 * 
 	 * @return a list of statements.
 	 */
 	public String[] getDefaultUpgradeSQL() {
-		return new String[] { getCreateTableSQL() };
+		List<String> sqls = Lists.newArrayList();
+		sqls.add(getCreateTableSQL());
+		sqls.addAll(getCreateIndexesSQL());
+		return sqls.toArray(new String[sqls.size()]);
+	}
+	
+	/**
+	 * Creates the SQL statement used to insert an entity, with one parameter for each given column.
+	 * 
+	 * @param columns columns to write.
+	 * @return SQL statement.
+	 */
+	protected String getInsertSQL(Column[] columns) {
+		if (columns.length == 0) {
+			return "INSERT INTO " + getTableName() + " DEFAULT VALUES;";
+		}
+		StringBuilder builder = new StringBuilder();
+		builder.append("INSERT INTO ").append(getTableName()).append("(");
+		for (int i = 0; i < columns.length; i++) {
+			if (i > 0) {
+				builder.append(", ");
+			}
+			builder.append(columns[i].getColumnName());
+		}
+		builder.append(") VALUES (");
+		for (int i = 0; i < columns.length; i++) {
+			if (i > 0) {
+				builder.append(", ");
+			}
+			builder.append("?");
+		}
+		builder.append(");");
+		return builder.toString();
+	}
+	
+	private CachedSQLiteStatement getInsertStatement(Column[] columns) {
+		String key = getStatementKey(columns);
+		CachedSQLiteStatement cachedStatement = insertStatements.get(key);
+		if (cachedStatement == null) {
+			cachedStatement = new CachedSQLiteStatement(getInsertSQL(columns));
+			insertStatements.put(key, cachedStatement);
+		}
+		return cachedStatement;
+	}
+	
+	/**
+	 * Creates the SQL statement used to update an entity only if some of its columns changed. The first parameters are
+	 * the given columns, followed by the id of the entity and, if filtered by parent, the parent id.
+	 * 
+	 * @param columns columns to write.
+	 * @param byParent whether the row is filtered by parent id too.
+	 * @return SQL statement.
+	 */
+	private String getUpdateSQL(Column[] columns, boolean byParent) {
+		StringBuilder setBuilder = new StringBuilder();
+		StringBuilder unchangedBuilder = new StringBuilder();
+		for (int i = 0; i < columns.length; i++) {
+			if (i > 0) {
+				setBuilder.append(", ");
+				unchangedBuilder.append(" AND ");
+			}
+			setBuilder.append(columns[i].getColumnName()).append("=?").append(i + 1);
+			unchangedBuilder.append(columns[i].getColumnName()).append(" IS ?").append(i + 1);
+		}
+		StringBuilder builder = new StringBuilder();
+		builder.append("UPDATE ").append(getTableName()).append(" SET ").append(setBuilder);
+		builder.append(" WHERE ").append(getIdColumnName()).append("=?").append(columns.length + 1);
+		if (byParent) {
+			builder.append(" AND ").append(getParentIdColumnName()).append("=?").append(columns.length + 2);
+		}
+		builder.append(" AND NOT (").append(unchangedBuilder).append(");");
+		return builder.toString();
+	}
+	
+	private String getStagingTableName() {
+		return "temp." + getTableName() + "_staging";
+	}
+	
+	private CachedSQLiteStatement getUpdateStatement(Column[] columns, boolean byParent) {
+		String key = getStatementKey(columns) + (byParent ? "|" + getParentIdColumnName() : "");
+		CachedSQLiteStatement cachedStatement = updateStatements.get(key);
+		if (cachedStatement == null) {
+			cachedStatement = new CachedSQLiteStatement(getUpdateSQL(columns, byParent));
+			updateStatements.put(key, cachedStatement);
+		}
+		return cachedStatement;
+	}
+	
+	private String getStatementKey(Column[] columns) {
+		StringBuilder builder = new StringBuilder();
+		for (Column column : columns) {
+			builder.append(column.getColumnName()).append(",");
+		}
+		return builder.toString();
+	}
+	
+	private synchronized CachedSQLiteStatement getStagingStatement() {
+		if (stagingStatement == null) {
+			stagingStatement = new CachedSQLiteStatement("INSERT OR IGNORE INTO " + getStagingTableName() + "("
+					+ Column.ID + ") VALUES (?);");
+		}
+		return stagingStatement;
+	}
+	
+	private synchronized CachedSQLiteStatement getCountStatement() {
+		if (countStatement == null) {
+			countStatement = new CachedSQLiteStatement("SELECT COUNT(*) FROM " + getTableName());
+		}
+		return countStatement;
+	}
+	
+	private synchronized CachedSQLiteStatement getExistsStatement() {
+		if (existsStatement == null) {
+			existsStatement = new CachedSQLiteStatement("SELECT EXISTS(SELECT 1 FROM " + getTableName() + ")");
+		}
+		return existsStatement;
 	}
 	
 	/**
@@ -544,4 +1139,38 @@ public abstract class SQLiteRepository<T extends Entity> implements Repository<T
 	public void setEntityChildrenListener(EntityChildrenListener<T> entityChildrenListener) {
 		this.entityChildrenListener = entityChildrenListener;
 	}
+	
+	/**
+	 * Columns written by the bulk writes, with their compiled statements.
+	 */
+	private static class WriteColumns {
+		
+		private Column[] columns;
+		// Whether each column of getColumns() is written
+		private boolean[] presentFlags;
+		private boolean fullRow;
+		private volatile CachedSQLiteStatement insertStatement;
+		private volatile CachedSQLiteStatement updateStatement;
+		private volatile CachedSQLiteStatement updateByParentStatement;
+		
+		WriteColumns(Column[] columns, boolean[] presentFlags, boolean fullRow) {
+			this.columns = columns;
+			this.presentFlags = presentFlags;
+			this.fullRow = fullRow;
+		}
+		
+		boolean matches(Column[] allColumns, ContentValues values) {
+			if (presentFlags.length != allColumns.length || fullRow != (values == null)) {
+				return false;
+			}
+			if (values != null) {
+				for (int i = 0; i < allColumns.length; i++) {
+					if (values.containsKey(allColumns[i].getColumnName()) != presentFlags[i]) {
+						return false;
+					}
+				}
+			}
+			return true;
+		}
+	}
 }
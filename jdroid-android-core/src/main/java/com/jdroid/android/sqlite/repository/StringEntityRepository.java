@@ -24,10 +24,19 @@ public abstract class StringEntityRepository extends SQLiteRepository<StringEnti
 	 */
 	@Override
 	protected StringEntity createObjectFromCursor(Cursor cursor) {
-		StringEntity entity = new StringEntity();
+		return populateObjectFromCursor(cursor, null);
+	}
+	
+	@Override
+	protected StringEntity populateObjectFromCursor(Cursor cursor, StringEntity entity) {
+		if (entity == null) {
+			entity = new StringEntity();
+		}
 		entity.setId((String)getColumn(Column.ID).readValue(cursor));
 		if (cursor.getColumnIndex(Column.PARENT_ID) >= 0) {
 			entity.setParentId((String)getColumn(Column.PARENT_ID).readValue(cursor));
+		} else {
+			entity.setParentId(null);
 		}
 		entity.setValue((String)getColumn(Column.VALUE).readValue(cursor));
 		return entity;
@@ -102,11 +111,14 @@ public abstract class StringEntityRepository extends SQLiteRepository<StringEnti
 	 * @return list of strings
 	 */
 	public List<String> getStringChildren(Long parentId) {
-		ArrayList<String> strings = new ArrayList<>();
-		List<StringEntity> entities = getByField(Column.PARENT_ID, parentId);
-		for (StringEntity entity : entities) {
-			strings.add(entity.getValue());
-		}
+		final ArrayList<String> strings = new ArrayList<>();
+		forEachByField(new EntityVisitor<StringEntity>() {
+			
+			@Override
+			public void visit(StringEntity item) {
+				strings.add(item.getValue());
+			}
+		}, true, Column.PARENT_ID, parentId);
 		return strings;
 	}
 	
@@ -116,11 +128,14 @@ public abstract class StringEntityRepository extends SQLiteRepository<StringEnti
 	 * @return list of strings
 	 */
 	public List<String> getAllString() {
-		ArrayList<String> strings = new ArrayList<>();
-		List<StringEntity> entities = getAll();
-		for (StringEntity entity : entities) {
-			strings.add(entity.getValue());
-		}
+		final ArrayList<String> strings = new ArrayList<>();
+		forEach(new EntityVisitor<StringEntity>() {
+			
+			@Override
+			public void visit(StringEntity item) {
+				strings.add(item.getValue());
+			}
+		}, true);
 		return strings;
 	}
 	
@@ -31,6 +31,7 @@ public class UriMapper {
 	public Boolean handleUri(@NonNull Activity activity, Intent intent, @Nullable UriHandler uriHandler, Boolean onActivityCreation) {
 		Uri uri = UriUtils.getUri(intent);
 		if (uri != null) {
+			AbstractApplication.get().getAppModuleRegistry().onUriOpened(uri);
 			notifyToUriWatchers(uri);
 			if (uriHandler != null) {
 				String referrerCategory = ReferrerUtils.getReferrerCategory(activity);
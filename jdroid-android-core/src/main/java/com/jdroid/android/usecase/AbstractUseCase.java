@@ -18,6 +18,7 @@ import com.jdroid.java.utils.LoggerUtils;
 import org.slf4j.Logger;
 
 import java.io.Serializable;
+import java.util.Arrays;
 import java.util.List;
 
 import static android.support.annotation.RestrictTo.Scope.LIBRARY;
@@ -35,8 +36,18 @@ public abstract class AbstractUseCase implements Runnable, Serializable {
 		FINISHED_FAILED;
 	}
 	
-	private transient volatile List<UseCaseListener> listeners;
+	private static final UseCaseListener[] NO_LISTENERS = new UseCaseListener[0];
+	
+	// Copy-on-write array, so the listeners can be iterated without locks nor iterators
+	private transient volatile UseCaseListener[] listeners;
 	private transient Handler handler;
+	
+	// Preallocated notification runnables, so each state change posts a single message without allocations
+	private transient Runnable startUseCaseRunnable;
+	private transient Runnable finishedUseCaseRunnable;
+	private transient Runnable finishedFailedUseCaseRunnable;
+	// The failure to notify, captured before posting the notification, so a new execution can't replace it
+	private transient volatile AbstractException failureToNotify;
 
 	private volatile UseCaseStatus useCaseStatus = UseCaseStatus.NOT_INVOKED;
 	private AbstractException abstractException;
@@ -45,6 +56,7 @@ public abstract class AbstractUseCase implements Runnable, Serializable {
 	private Long startTime;
 	private Long executionTime;
 	private int exceptionPriorityLevel = AbstractException.NORMAL_PRIORITY;
+	private UseCasePriority priority = UseCasePriority.UI_BLOCKING;
 
 	/**
 	 * Executes the use case.
@@ -52,23 +64,19 @@ public abstract class AbstractUseCase implements Runnable, Serializable {
 	@Override
 	public final void run() {
 		
-		LOGGER.debug("Executing " + getClass().getSimpleName());
+		boolean debugEnabled = LOGGER.isDebugEnabled();
+		if (debugEnabled) {
+			LOGGER.debug("Executing " + getClass().getSimpleName());
+		}
 		markAsInProgress();
-
-		if (!Lists.isNullOrEmpty(listeners)) {
-			Runnable startUseCaseRunnable = new Runnable() {
-				@Override
-				public void run() {
-					for (UseCaseListener listener : listeners) {
-						notifyUseCaseStart(listener);
-					}
-				}
-			};
-			if (handler != null) {
-				handler.post(startUseCaseRunnable);
-			} else {
-				startUseCaseRunnable.run();
+		notifyStart();
+		
+		String coalescingKey = getCoalescingKey();
+		if (coalescingKey != null && UseCaseCoalescer.get().attach(this, coalescingKey)) {
+			if (debugEnabled) {
+				LOGGER.debug("Coalesced execution of " + getClass().getSimpleName() + " with key " + coalescingKey);
 			}
+			return;
 		}
 		
 		Trace trace = null;
@@ -78,12 +86,16 @@ public abstract class AbstractUseCase implements Runnable, Serializable {
 
 		try {
 			
-			LOGGER.debug("Started " + getClass().getSimpleName());
+			if (debugEnabled) {
+				LOGGER.debug("Started " + getClass().getSimpleName());
+			}
 			executionTime = null;
 			startTime = DateUtils.nowMillis();
 			doExecute();
 			executionTime = DateUtils.nowMillis() - startTime;
-			LOGGER.debug("Finished " + getClass().getSimpleName() + ". Execution time: " + DateUtils.formatDuration(executionTime));
+			if (debugEnabled) {
+				LOGGER.debug("Finished " + getClass().getSimpleName() + ". Execution time: " + DateUtils.formatDuration(executionTime));
+			}
 			
 			if (trace != null) {
 				trace.putAttribute("result", "success");
@@ -91,56 +103,179 @@ public abstract class AbstractUseCase implements Runnable, Serializable {
 			}
 			
 			markAsSuccessful();
+			notifySuccess();
 
-			if (!Lists.isNullOrEmpty(listeners)) {
-				Runnable finishedUseCaseRunnable = new Runnable() {
+		} catch (RuntimeException e) {
+			if (trace != null) {
+				trace.putAttribute("result", "failure");
+				trace.incrementMetric("failures", 1);
+			}
+			AbstractException abstractException = wrapException(e);
+			markAsFailed(abstractException);
+			logHandledException(abstractException);
+			notifyFailure();
+		} finally {
+			if (trace != null) {
+				trace.stop();
+			}
+			if (coalescingKey != null) {
+				UseCaseCoalescer.get().complete(this, coalescingKey);
+			}
+		}
+	}
+	
+	/**
+	 * Completes this use case with the result of an equivalent use case, executed instead of this one.
+	 * 
+	 * @param result the result of the executed use case, as returned by {@link #getCoalescingResult()}.
+	 * @param exception the failure of the executed use case, or null if it was successful.
+	 */
+	void completeCoalesced(Object result, AbstractException exception) {
+		if (exception == null) {
+			try {
+				onCoalescedExecution(result);
+				markAsSuccessful();
+				notifySuccess();
+			} catch (RuntimeException e) {
+				AbstractException abstractException = wrapException(e);
+				markAsFailed(abstractException);
+				logHandledException(abstractException);
+				notifyFailure();
+			}
+		} else {
+			markAsFailed(exception);
+			notifyFailure();
+		}
+	}
+	
+	/**
+	 * Completes this use case as failed, because its execution was rejected by the {@link UseCaseExecutor}.
+	 * 
+	 * @param message the reason of the rejection.
+	 */
+	void onRejectedExecution(String message) {
+		AbstractException abstractException = wrapException(new UnexpectedException(message));
+		markAsFailed(abstractException);
+		logHandledException(abstractException);
+		notifyFailure();
+	}
+	
+	private void notifyStart() {
+		if (hasListeners()) {
+			if (startUseCaseRunnable == null) {
+				startUseCaseRunnable = new Runnable() {
 					@Override
 					public void run() {
-						for (UseCaseListener listener : listeners) {
+						for (UseCaseListener listener : getListenersArray()) {
+							notifyUseCaseStart(listener);
+						}
+					}
+				};
+			}
+			dispatch(startUseCaseRunnable);
+		}
+	}
+	
+	private void notifySuccess() {
+		if (hasListeners()) {
+			if (finishedUseCaseRunnable == null) {
+				finishedUseCaseRunnable = new Runnable() {
+					@Override
+					public void run() {
+						for (UseCaseListener listener : getListenersArray()) {
 							notifyFinishedUseCase(listener);
 						}
 						markAsNotified();
 					}
 				};
-				if (handler != null) {
-					handler.post(finishedUseCaseRunnable);
-				} else {
-					finishedUseCaseRunnable.run();
-				}
 			}
-
-		} catch (RuntimeException e) {
-			if (trace != null) {
-				trace.putAttribute("result", "failure");
-				trace.incrementMetric("failures", 1);
-			}
-			final AbstractException abstractException = wrapException(e);
-			markAsFailed(abstractException);
-			logHandledException(abstractException);
-
-			if (!Lists.isNullOrEmpty(listeners)) {
-				Runnable finishedFailedUseCaseRunnable = new Runnable() {
+			dispatch(finishedUseCaseRunnable);
+		}
+	}
+	
+	private void notifyFailure() {
+		if (hasListeners()) {
+			failureToNotify = abstractException;
+			if (finishedFailedUseCaseRunnable == null) {
+				finishedFailedUseCaseRunnable = new Runnable() {
 					@Override
 					public void run() {
-						for (UseCaseListener listener : listeners) {
+						AbstractException abstractException = failureToNotify;
+						for (UseCaseListener listener : getListenersArray()) {
 							notifyFailedUseCase(abstractException, listener);
 						}
 						markAsNotified();
 					}
 				};
-				if (handler != null) {
-					handler.post(finishedFailedUseCaseRunnable);
-				} else {
-					finishedFailedUseCaseRunnable.run();
-				}
-			}
-		} finally {
-			if (trace != null) {
-				trace.stop();
 			}
+			dispatch(finishedFailedUseCaseRunnable);
+		}
+	}
+	
+	private void dispatch(Runnable runnable) {
+		Handler currentHandler = handler;
+		if (currentHandler != null) {
+			currentHandler.post(runnable);
+		} else {
+			runnable.run();
 		}
 	}
 	
+	private boolean hasListeners() {
+		UseCaseListener[] currentListeners = listeners;
+		return currentListeners != null && currentListeners.length > 0;
+	}
+	
+	private UseCaseListener[] getListenersArray() {
+		UseCaseListener[] currentListeners = listeners;
+		return currentListeners != null ? currentListeners : NO_LISTENERS;
+	}
+	
+	/**
+	 * Returns the key used to coalesce the executions of this use case class with the same inputs. While an execution
+	 * is in progress, the executions of other instances with the same key don't invoke {@link #doExecute()}: they are
+	 * completed with the result of the execution in progress, through {@link #onCoalescedExecution(Object)}.
+	 * By default it returns null, so the executions are not coalesced.
+	 * 
+	 * @return the coalescing key, or null to disable the coalescing.
+	 */
+	protected String getCoalescingKey() {
+		return null;
+	}
+	
+	/**
+	 * Returns how long, in milliseconds, the result of a successful execution can be reused by the executions with the
+	 * same coalescing key. By default it returns 0, so only the executions in progress are shared.
+	 * 
+	 * @return the time to live of the result.
+	 */
+	protected long getCoalescingResultTimeToLive() {
+		return 0;
+	}
+	
+	/**
+	 * Returns the result of a successful execution, shared with the coalesced executions and kept while its time to live
+	 * is not expired. It should not reference this use case nor its listeners, so they can be garbage collected. By
+	 * default it returns null.
+	 * 
+	 * @return the result of the execution.
+	 */
+	@Nullable
+	protected Object getCoalescingResult() {
+		return null;
+	}
+	
+	/**
+	 * Invoked when this use case is completed with the result of other instance with the same coalescing key. The use
+	 * cases which define a coalescing key should override it to copy the result.
+	 * 
+	 * @param result the result of the executed use case, as returned by {@link #getCoalescingResult()}.
+	 */
+	@WorkerThread
+	protected void onCoalescedExecution(@Nullable Object result) {
+		// Do Nothing
+	}
+	
 	protected Boolean timingTrackingEnabled() {
 		return true;
 	}
@@ -188,7 +323,9 @@ public abstract class AbstractUseCase implements Runnable, Serializable {
 	@RestrictTo(LIBRARY)
 	public void notifyUseCaseStart(UseCaseListener listener) {
 		try {
-			LOGGER.debug("Notifying " + getClass().getSimpleName() + " start to listener " + listener.getClass().getSimpleName());
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Notifying " + getClass().getSimpleName() + " start to listener " + listener.getClass().getSimpleName());
+			}
 			listener.onStartUseCase();
 		} catch (Exception e) {
 			AbstractException abstractException = wrapException(e);
@@ -206,7 +343,9 @@ public abstract class AbstractUseCase implements Runnable, Serializable {
 	@RestrictTo(LIBRARY)
 	public void notifyFinishedUseCase(UseCaseListener listener) {
 		try {
-			LOGGER.debug("Notifying " + getClass().getSimpleName() + " finish to listener " + listener.getClass().getSimpleName());
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Notifying " + getClass().getSimpleName() + " finish to listener " + listener.getClass().getSimpleName());
+			}
 			listener.onFinishUseCase();
 		} catch (Exception e) {
 			AbstractException abstractException = wrapException(e);
@@ -224,7 +363,9 @@ public abstract class AbstractUseCase implements Runnable, Serializable {
 	@RestrictTo(LIBRARY)
 	public void notifyFailedUseCase(AbstractException exception, UseCaseListener listener) {
 		try {
-			LOGGER.debug("Notifying " + getClass().getSimpleName() + " finish failed to listener " + listener.getClass().getSimpleName());
+			if (LOGGER.isDebugEnabled()) {
+				LOGGER.debug("Notifying " + getClass().getSimpleName() + " finish failed to listener " + listener.getClass().getSimpleName());
+			}
 			listener.onFinishFailedUseCase(exception);
 		} catch (Exception e) {
 			AbstractException abstractException = wrapException(e);
@@ -233,33 +374,46 @@ public abstract class AbstractUseCase implements Runnable, Serializable {
 	}
 	
 	/**
-	 * @return the listeners
+	 * @return a copy of the listeners
 	 */
 	@Nullable
 	protected List<UseCaseListener> getListeners() {
-		return listeners;
+		UseCaseListener[] currentListeners = listeners;
+		return currentListeners != null ? Lists.newArrayList(Arrays.asList(currentListeners)) : null;
 	}
 	
 	/**
 	 * @param listener the listener to add
 	 */
-	public void addListener(UseCaseListener listener) {
+	public synchronized void addListener(UseCaseListener listener) {
 		if (listener != null) {
-			if (listeners == null) {
-				listeners = Lists.newArrayList();
-			}
-			if (!listeners.contains(listener)) {
-				this.listeners.add(listener);
+			UseCaseListener[] currentListeners = getListenersArray();
+			for (UseCaseListener each : currentListeners) {
+				if (each.equals(listener)) {
+					return;
+				}
 			}
+			UseCaseListener[] newListeners = Arrays.copyOf(currentListeners, currentListeners.length + 1);
+			newListeners[currentListeners.length] = listener;
+			listeners = newListeners;
 		}
 	}
 	
 	/**
 	 * @param listener the listener to remove
 	 */
-	public void removeListener(UseCaseListener listener) {
-		if (listener != null && listeners != null) {
-			listeners.remove(listener);
+	public synchronized void removeListener(UseCaseListener listener) {
+		if (listener != null) {
+			UseCaseListener[] currentListeners = getListenersArray();
+			for (int i = 0; i < currentListeners.length; i++) {
+				if (currentListeners[i].equals(listener)) {
+					UseCaseListener[] newListeners = new UseCaseListener[currentListeners.length - 1];
+					System.arraycopy(currentListeners, 0, newListeners, 0, i);
+					System.arraycopy(currentListeners, i + 1, newListeners, i, currentListeners.length - i - 1);
+					listeners = newListeners;
+					return;
+				}
+			}
 		}
 	}
 	
@@ -325,6 +479,19 @@ public abstract class AbstractUseCase implements Runnable, Serializable {
 		this.exceptionPriorityLevel = exceptionPriorityLevel;
 	}
 
+	/**
+	 * @return the lane where the use case is executed. By default it is {@link UseCasePriority#UI_BLOCKING}, whose queue
+	 * is unbounded. On the bounded lanes, a use case executed while the queue is full fails with an
+	 * {@link com.jdroid.java.exception.UnexpectedException} and its listeners are notified.
+	 */
+	public UseCasePriority getPriority() {
+		return priority;
+	}
+	
+	public void setPriority(UseCasePriority priority) {
+		this.priority = priority;
+	}
+
 	public void setHandler(Handler handler) {
 		this.handler = handler;
 	}
@@ -0,0 +1,157 @@
+package com.jdroid.android.usecase;
+
+import com.jdroid.java.collections.Lists;
+import com.jdroid.java.collections.Maps;
+import com.jdroid.java.concurrent.ExecutorUtils;
+import com.jdroid.java.date.DateUtils;
+import com.jdroid.java.exception.AbstractException;
+import com.jdroid.java.exception.UnexpectedException;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shares a single execution between the instances of a use case class with the same coalescing key. It also keeps the
+ * successful results while their time to live is not expired, so a rapid re-execution is completed immediately. Only
+ * the result values are kept, never the executed use cases, and the expired ones are purged on each lookup and when
+ * their time to live ends.
+ * 
+ * @see AbstractUseCase#getCoalescingKey()
+ */
+class UseCaseCoalescer {
+	
+	private static final UseCaseCoalescer INSTANCE = new UseCaseCoalescer();
+	
+	private Map<String, InFlightExecution> inFlightExecutions = Maps.newHashMap();
+	private Map<String, CachedResult> cachedResults = Maps.newHashMap();
+	
+	static UseCaseCoalescer get() {
+		return INSTANCE;
+	}
+	
+	/**
+	 * Attaches the use case to an equivalent execution, if there is one in progress or a cached result. Otherwise, the
+	 * use case is registered as the one to execute.
+	 * 
+	 * @param useCase the use case to execute.
+	 * @param coalescingKey the coalescing key of the use case.
+	 * @return true if the use case was attached, so it shouldn't be executed, or false if it should be executed.
+	 */
+	boolean attach(AbstractUseCase useCase, String coalescingKey) {
+		String key = getKey(useCase, coalescingKey);
+		CachedResult cachedResult;
+		synchronized (this) {
+			removeExpiredResults();
+			cachedResult = cachedResults.get(key);
+			if (cachedResult == null) {
+				InFlightExecution inFlightExecution = inFlightExecutions.get(key);
+				if (inFlightExecution != null) {
+					if (inFlightExecution.useCase != useCase && !inFlightExecution.followers.contains(useCase)) {
+						inFlightExecution.followers.add(useCase);
+					}
+					return true;
+				}
+				inFlightExecutions.put(key, new InFlightExecution(useCase));
+				return false;
+			}
+		}
+		useCase.completeCoalesced(cachedResult.result, null);
+		return true;
+	}
+	
+	/**
+	 * Completes all the use cases attached to the execution of the given use case. It should be invoked when the
+	 * execution ends, even if it failed.
+	 * 
+	 * @param useCase the executed use case.
+	 * @param coalescingKey the coalescing key of the use case.
+	 */
+	void complete(AbstractUseCase useCase, String coalescingKey) {
+		String key = getKey(useCase, coalescingKey);
+		List<AbstractUseCase> followers;
+		Object result = null;
+		AbstractException exception = null;
+		synchronized (this) {
+			InFlightExecution inFlightExecution = inFlightExecutions.get(key);
+			if (inFlightExecution == null || inFlightExecution.useCase != useCase) {
+				return;
+			}
+			inFlightExecutions.remove(key);
+			followers = inFlightExecution.followers;
+			
+			if (useCase.isFinishSuccessful()) {
+				result = useCase.getCoalescingResult();
+				long timeToLive = useCase.getCoalescingResultTimeToLive();
+				if (timeToLive > 0) {
+					removeExpiredResults();
+					cachedResults.put(key, new CachedResult(result, DateUtils.nowMillis() + timeToLive));
+					schedulePurge(timeToLive);
+				}
+			} else {
+				exception = useCase.getAbstractException();
+				if (exception == null) {
+					exception = new UnexpectedException("The coalesced execution of " + useCase.getClass().getSimpleName() + " did not finish");
+				}
+			}
+		}
+		for (AbstractUseCase follower : followers) {
+			follower.completeCoalesced(result, exception);
+		}
+	}
+	
+	private void schedulePurge(long delay) {
+		ExecutorUtils.schedule(new Runnable() {
+			
+			@Override
+			public void run() {
+				synchronized (UseCaseCoalescer.this) {
+					removeExpiredResults();
+				}
+			}
+		}, delay, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * @return the amount of results kept, including the expired ones not purged yet
+	 */
+	synchronized int getCachedResultsCount() {
+		return cachedResults.size();
+	}
+	
+	private void removeExpiredResults() {
+		long now = DateUtils.nowMillis();
+		Iterator<CachedResult> iterator = cachedResults.values().iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().expirationTime <= now) {
+				iterator.remove();
+			}
+		}
+	}
+	
+	private String getKey(AbstractUseCase useCase, String coalescingKey) {
+		return useCase.getClass().getName() + ":" + coalescingKey;
+	}
+	
+	private static class InFlightExecution {
+		
+		private AbstractUseCase useCase;
+		private List<AbstractUseCase> followers = Lists.newArrayList();
+		
+		InFlightExecution(AbstractUseCase useCase) {
+			this.useCase = useCase;
+		}
+	}
+	
+	private static class CachedResult {
+		
+		private Object result;
+		private long expirationTime;
+		
+		CachedResult(Object result, long expirationTime) {
+			this.result = result;
+			this.expirationTime = expirationTime;
+		}
+	}
+}
@@ -0,0 +1,158 @@
+package com.jdroid.android.usecase;
+
+import android.os.Process;
+import android.support.annotation.NonNull;
+
+import com.jdroid.java.collections.Lists;
+import com.jdroid.java.collections.Maps;
+import com.jdroid.java.date.DateUtils;
+import com.jdroid.java.utils.LoggerUtils;
+
+import org.slf4j.Logger;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes the use cases on a thread pool per {@link UseCasePriority}. The use cases waiting on the queues can
+ * be cancelled by owner, and the queue wait time and run time of each use case class are tracked.
+ */
+public class UseCaseExecutor {
+
+	private final static Logger LOGGER = LoggerUtils.getLogger(UseCaseExecutor.class);
+
+	private static final long KEEP_ALIVE_SECONDS = 30;
+
+	private static final UseCaseExecutor INSTANCE = new UseCaseExecutor();
+
+	private Map<UseCasePriority, ThreadPoolExecutor> executors = Maps.newHashMap();
+	private ConcurrentHashMap<String, UseCaseMetrics> metrics = new ConcurrentHashMap<>();
+
+	public static UseCaseExecutor get() {
+		return INSTANCE;
+	}
+
+	private UseCaseExecutor() {
+		for (UseCasePriority priority : UseCasePriority.values()) {
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(priority.getMaxConcurrency(), priority.getMaxConcurrency(),
+					KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(priority.getQueueCapacity()),
+					new UseCaseThreadFactory(priority), new UseCaseRejectedExecutionHandler());
+			executor.allowCoreThreadTimeOut(true);
+			executors.put(priority, executor);
+		}
+	}
+
+	/**
+	 * Enqueues the use case on the lane of its priority. If the queue of a bounded lane is full, the use case is completed
+	 * as failed and its listeners are notified.
+	 *
+	 * @param useCase the use case to execute.
+	 * @param owner the object which owns the execution, usually a fragment, or null if it has no owner.
+	 */
+	public void execute(AbstractUseCase useCase, Object owner) {
+		executors.get(useCase.getPriority()).execute(new QueuedUseCase(useCase, owner));
+	}
+
+	/**
+	 * Removes from the queues all the use cases of the given owner which didn't start yet.
+	 *
+	 * @param owner the owner of the executions.
+	 */
+	public void cancel(Object owner) {
+		if (owner != null) {
+			for (ThreadPoolExecutor executor : executors.values()) {
+				List<Runnable> queuedRunnables = Lists.newArrayList(executor.getQueue());
+				for (Runnable runnable : queuedRunnables) {
+					if (runnable instanceof QueuedUseCase && ((QueuedUseCase)runnable).owner == owner) {
+						if (executor.remove(runnable)) {
+							LOGGER.debug("Cancelled queued " + ((QueuedUseCase)runnable).useCase.getClass().getSimpleName());
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the metrics of each executed use case class, by class name
+	 */
+	public Map<String, UseCaseMetrics> getMetrics() {
+		return metrics;
+	}
+
+	private UseCaseMetrics getMetrics(Class<?> useCaseClass) {
+		UseCaseMetrics useCaseMetrics = metrics.get(useCaseClass.getName());
+		if (useCaseMetrics == null) {
+			useCaseMetrics = new UseCaseMetrics();
+			UseCaseMetrics previous = metrics.putIfAbsent(useCaseClass.getName(), useCaseMetrics);
+			if (previous != null) {
+				useCaseMetrics = previous;
+			}
+		}
+		return useCaseMetrics;
+	}
+
+	private class QueuedUseCase implements Runnable {
+
+		private AbstractUseCase useCase;
+		private Object owner;
+		private long enqueueTime;
+
+		QueuedUseCase(AbstractUseCase useCase, Object owner) {
+			this.useCase = useCase;
+			this.owner = owner;
+			enqueueTime = DateUtils.nowMillis();
+		}
+
+		@Override
+		public void run() {
+			long startTime = DateUtils.nowMillis();
+			try {
+				useCase.run();
+			} finally {
+				long endTime = DateUtils.nowMillis();
+				getMetrics(useCase.getClass()).onExecuted(startTime - enqueueTime, endTime - startTime);
+			}
+		}
+	}
+
+	private static class UseCaseThreadFactory implements ThreadFactory {
+
+		private UseCasePriority priority;
+		private AtomicInteger threadNumber = new AtomicInteger(1);
+
+		UseCaseThreadFactory(UseCasePriority priority) {
+			this.priority = priority;
+		}
+
+		@Override
+		public Thread newThread(@NonNull final Runnable runnable) {
+			return new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					Process.setThreadPriority(priority.getThreadPriority());
+					runnable.run();
+				}
+			}, "usecase-" + priority.name().toLowerCase(Locale.US) + "-" + threadNumber.getAndIncrement());
+		}
+	}
+
+	private static class UseCaseRejectedExecutionHandler implements RejectedExecutionHandler {
+
+		@Override
+		public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+			AbstractUseCase useCase = ((QueuedUseCase)runnable).useCase;
+			useCase.onRejectedExecution("Queue full. Discarded execution of " + useCase.getClass().getSimpleName()
+					+ " with priority " + useCase.getPriority());
+		}
+	}
+}
@@ -33,7 +33,7 @@ public class UseCaseHelper {
 				}
 
 				if (useCaseTrigger.equals(UseCaseTrigger.ALWAYS)) {
-					executeUseCase(useCase);
+					executeUseCase(useCase, listener);
 				}
 			} else if (useCase.isFinishFailed()) {
 				if (listener != null && !useCase.isNotified()) {
@@ -42,12 +42,12 @@ public class UseCaseHelper {
 				}
 
 				if (useCaseTrigger.equals(UseCaseTrigger.ALWAYS)) {
-					executeUseCase(useCase);
+					executeUseCase(useCase, listener);
 				}
 
 			} else if (useCase.isNotInvoked()
 					&& (useCaseTrigger.equals(UseCaseTrigger.ONCE) || useCaseTrigger.equals(UseCaseTrigger.ALWAYS))) {
-				executeUseCase(useCase);
+				executeUseCase(useCase, listener);
 			}
 		}
 	}
@@ -60,10 +60,36 @@ public class UseCaseHelper {
 	}
 
 	public static void executeUseCase(AbstractUseCase useCase) {
-		ExecutorUtils.execute(useCase);
+		executeUseCase(useCase, (Object)null);
+	}
+
+	/**
+	 * Executes the use case on the lane of its {@link UseCasePriority}.
+	 *
+	 * @param useCase the use case to execute.
+	 * @param owner the object which owns the execution, so it can be cancelled with {@link #cancelQueuedUseCases(Object)}.
+	 */
+	public static void executeUseCase(AbstractUseCase useCase, Object owner) {
+		UseCaseExecutor.get().execute(useCase, owner);
+	}
+
+	public static void executeUseCase(final AbstractUseCase useCase, Long delay, TimeUnit timeUnit) {
+		ExecutorUtils.schedule(new Runnable() {
+
+			@Override
+			public void run() {
+				executeUseCase(useCase);
+			}
+		}, delay, timeUnit);
 	}
 
-	public static void executeUseCase(AbstractUseCase useCase, Long delay, TimeUnit timeUnit) {
-		ExecutorUtils.schedule(useCase, delay, timeUnit);
+	/**
+	 * Cancels the executions of the given owner which are still waiting on the queue. It should be invoked when the
+	 * owner is destroyed.
+	 *
+	 * @param owner the owner of the executions.
+	 */
+	public static void cancelQueuedUseCases(Object owner) {
+		UseCaseExecutor.get().cancel(owner);
 	}
 }
@@ -0,0 +1,70 @@
+package com.jdroid.android.usecase;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Queue wait time and run time of the executions of a use case class.
+ */
+public class UseCaseMetrics {
+	
+	private AtomicLong executions = new AtomicLong();
+	private AtomicLong totalWaitTime = new AtomicLong();
+	private AtomicLong maxWaitTime = new AtomicLong();
+	private AtomicLong totalRunTime = new AtomicLong();
+	private AtomicLong maxRunTime = new AtomicLong();
+	
+	void onExecuted(long waitTime, long runTime) {
+		executions.incrementAndGet();
+		totalWaitTime.addAndGet(waitTime);
+		totalRunTime.addAndGet(runTime);
+		updateMax(maxWaitTime, waitTime);
+		updateMax(maxRunTime, runTime);
+	}
+	
+	private void updateMax(AtomicLong max, long value) {
+		long current = max.get();
+		while (value > current && !max.compareAndSet(current, value)) {
+			current = max.get();
+		}
+	}
+	
+	public long getExecutions() {
+		return executions.get();
+	}
+	
+	/**
+	 * @return the average time, in milliseconds, the executions waited on the queue
+	 */
+	public long getAverageWaitTime() {
+		long count = executions.get();
+		return count > 0 ? totalWaitTime.get() / count : 0;
+	}
+	
+	/**
+	 * @return the max time, in milliseconds, an execution waited on the queue
+	 */
+	public long getMaxWaitTime() {
+		return maxWaitTime.get();
+	}
+	
+	/**
+	 * @return the average time, in milliseconds, the executions took to run
+	 */
+	public long getAverageRunTime() {
+		long count = executions.get();
+		return count > 0 ? totalRunTime.get() / count : 0;
+	}
+	
+	/**
+	 * @return the max time, in milliseconds, an execution took to run
+	 */
+	public long getMaxRunTime() {
+		return maxRunTime.get();
+	}
+	
+	@Override
+	public String toString() {
+		return "executions=" + getExecutions() + ", averageWaitTime=" + getAverageWaitTime() + ", maxWaitTime="
+				+ getMaxWaitTime() + ", averageRunTime=" + getAverageRunTime() + ", maxRunTime=" + getMaxRunTime();
+	}
+}
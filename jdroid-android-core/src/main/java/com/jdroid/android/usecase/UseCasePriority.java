@@ -0,0 +1,58 @@
+package com.jdroid.android.usecase;
+
+import android.os.Process;
+
+/**
+ * Execution lanes for the use cases. Each lane has its own threads and queue, so the use cases the user is waiting for
+ * never wait behind prefetches or background refreshes.
+ */
+public enum UseCasePriority {
+	
+	/**
+	 * Use cases the user is waiting for, like the load of the current screen. It is the default lane, so its queue is
+	 * unbounded and its use cases are never rejected.
+	 */
+	UI_BLOCKING(4, Integer.MAX_VALUE, Process.THREAD_PRIORITY_DEFAULT),
+	
+	/**
+	 * Use cases that load data the user will probably need soon. When its queue is full, the use case fails.
+	 */
+	PREFETCH(2, 32, Process.THREAD_PRIORITY_BACKGROUND),
+	
+	/**
+	 * Use cases not related to the current screen, like refreshes or synchronizations. When its queue is full, the use
+	 * case fails.
+	 */
+	BACKGROUND(1, 128, Process.THREAD_PRIORITY_BACKGROUND + Process.THREAD_PRIORITY_LESS_FAVORABLE);
+	
+	private int maxConcurrency;
+	private int queueCapacity;
+	private int threadPriority;
+	
+	UseCasePriority(int maxConcurrency, int queueCapacity, int threadPriority) {
+		this.maxConcurrency = maxConcurrency;
+		this.queueCapacity = queueCapacity;
+		this.threadPriority = threadPriority;
+	}
+	
+	/**
+	 * @return the max amount of use cases of this lane running at the same time
+	 */
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+	
+	/**
+	 * @return the max amount of use cases of this lane waiting to be executed
+	 */
+	public int getQueueCapacity() {
+		return queueCapacity;
+	}
+	
+	/**
+	 * @return the {@link Process} thread priority of the lane threads
+	 */
+	public int getThreadPriority() {
+		return threadPriority;
+	}
+}
@@ -3,11 +3,13 @@ package com.jdroid.android.utils;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.content.SharedPreferences.Editor;
+import android.content.SharedPreferences.OnSharedPreferenceChangeListener;
 import android.preference.PreferenceManager;
 import android.support.annotation.WorkerThread;
 
 import com.jdroid.android.application.AbstractApplication;
 import com.jdroid.java.collections.Lists;
+import com.jdroid.java.concurrent.ExecutorUtils;
 import com.jdroid.java.utils.LoggerUtils;
 import com.jdroid.java.utils.StringUtils;
 
@@ -15,6 +17,8 @@ import org.slf4j.Logger;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * Helper to work with the shared preferences
@@ -25,15 +29,49 @@ public class SharedPreferencesHelper {
 
 	private static SharedPreferencesHelper defaultSharedPreferencesHelper = new SharedPreferencesHelper(null);
 	
+	private static ConcurrentHashMap<String, SharedPreferencesHelper> sharedPreferencesHelpers = new ConcurrentHashMap<>();
+	
 	private String name;
-	private SharedPreferences sharedPreferences;
+	private volatile SharedPreferences sharedPreferences;
+	
+	private SharedPreferencesSnapshot snapshot;
+	private volatile CountDownLatch warmUpLatch;
+	
+	// Kept as a field because the shared preferences only keep weak references to the listeners
+	private OnSharedPreferenceChangeListener onSharedPreferenceChangeListener = new OnSharedPreferenceChangeListener() {
+		
+		@Override
+		public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+			invalidateSnapshot();
+		}
+	};
 	
 	public static SharedPreferencesHelper get(Class<?> clazz) {
 		return get(clazz.getSimpleName());
 	}
 	
 	public static SharedPreferencesHelper get(String name) {
-		return new SharedPreferencesHelper(name);
+		SharedPreferencesHelper sharedPreferencesHelper = sharedPreferencesHelpers.get(name);
+		if (sharedPreferencesHelper == null) {
+			sharedPreferencesHelper = new SharedPreferencesHelper(name);
+			SharedPreferencesHelper previous = sharedPreferencesHelpers.putIfAbsent(name, sharedPreferencesHelper);
+			if (previous != null) {
+				sharedPreferencesHelper = previous;
+			}
+		}
+		return sharedPreferencesHelper;
+	}
+	
+	/**
+	 * Loads the shared preferences files in parallel on worker threads, so the first reads don't block the calling thread.
+	 * 
+	 * @param names The names of the shared preferences files. A null name means the default shared preferences.
+	 */
+	public static void warmUp(List<String> names) {
+		for (String name : names) {
+			SharedPreferencesHelper sharedPreferencesHelper = name != null ? get(name) : get();
+			sharedPreferencesHelper.warmUp();
+		}
 	}
 	
 	public static SharedPreferencesHelper get() {
@@ -51,15 +89,69 @@ public class SharedPreferencesHelper {
 	@WorkerThread
 	public SharedPreferences getSharedPreferences() {
 		if (sharedPreferences == null) {
-			if (name != null) {
-				sharedPreferences = AbstractApplication.get().getSharedPreferences(name, Context.MODE_PRIVATE);
-			} else {
-				sharedPreferences = PreferenceManager.getDefaultSharedPreferences(AbstractApplication.get());
+			synchronized (this) {
+				if (sharedPreferences == null) {
+					SharedPreferences newSharedPreferences;
+					if (name != null) {
+						newSharedPreferences = AbstractApplication.get().getSharedPreferences(name, Context.MODE_PRIVATE);
+					} else {
+						newSharedPreferences = PreferenceManager.getDefaultSharedPreferences(AbstractApplication.get());
+					}
+					newSharedPreferences.registerOnSharedPreferenceChangeListener(onSharedPreferenceChangeListener);
+					sharedPreferences = newSharedPreferences;
+				}
 			}
 		}
 		return sharedPreferences;
 	}
 	
+	private synchronized void warmUp() {
+		if (warmUpLatch == null && snapshot == null) {
+			final CountDownLatch latch = new CountDownLatch(1);
+			warmUpLatch = latch;
+			ExecutorUtils.execute(new Runnable() {
+				
+				@Override
+				public void run() {
+					try {
+						loadSnapshot();
+					} finally {
+						latch.countDown();
+					}
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Returns an immutable copy of the preferences, with primitive getters. If the preferences are being warmed up, it
+	 * blocks until the warm up finishes. The snapshot is replaced after each write, so it shouldn't be kept by the caller.
+	 * 
+	 * @return The snapshot of the preferences.
+	 */
+	public SharedPreferencesSnapshot getSnapshot() {
+		CountDownLatch latch = warmUpLatch;
+		if (latch != null) {
+			try {
+				latch.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return loadSnapshot();
+	}
+	
+	private synchronized SharedPreferencesSnapshot loadSnapshot() {
+		if (snapshot == null) {
+			snapshot = new SharedPreferencesSnapshot(getSharedPreferences().getAll());
+		}
+		return snapshot;
+	}
+	
+	private synchronized void invalidateSnapshot() {
+		snapshot = null;
+	}
+	
 	private void logSave(String key, Object value) {
 		if (name != null) {
 			LOGGER.info("Saved [" + name + "] preference. Key [" + key + "] Value [" + value + "]");
@@ -72,6 +164,7 @@ public class SharedPreferencesHelper {
 		Editor editor = getEditor();
 		editor.putString(key, value);
 		editor.commit();
+		invalidateSnapshot();
 		logSave(key, value);
 	}
 	
@@ -79,6 +172,7 @@ public class SharedPreferencesHelper {
 		Editor editor = getEditor();
 		editor.putString(key, value);
 		editor.apply();
+		invalidateSnapshot();
 		logSave(key, value);
 	}
 	
@@ -86,6 +180,7 @@ public class SharedPreferencesHelper {
 		Editor editor = getEditor();
 		editor.putBoolean(key, value);
 		editor.commit();
+		invalidateSnapshot();
 		logSave(key, value);
 	}
 
@@ -93,6 +188,7 @@ public class SharedPreferencesHelper {
 		Editor editor = getEditor();
 		editor.putBoolean(key, value);
 		editor.apply();
+		invalidateSnapshot();
 		logSave(key, value);
 	}
 	
@@ -100,6 +196,7 @@ public class SharedPreferencesHelper {
 		Editor editor = getEditor();
 		editor.putInt(key, value);
 		editor.commit();
+		invalidateSnapshot();
 		logSave(key, value);
 	}
 
@@ -107,6 +204,7 @@ public class SharedPreferencesHelper {
 		Editor editor = getEditor();
 		editor.putInt(key, value);
 		editor.apply();
+		invalidateSnapshot();
 		logSave(key, value);
 	}
 	
@@ -114,6 +212,7 @@ public class SharedPreferencesHelper {
 		Editor editor = getEditor();
 		editor.putLong(key, value);
 		editor.commit();
+		invalidateSnapshot();
 		logSave(key, value);
 	}
 
@@ -121,6 +220,7 @@ public class SharedPreferencesHelper {
 		Editor editor = getEditor();
 		editor.putLong(key, value);
 		editor.apply();
+		invalidateSnapshot();
 		logSave(key, value);
 	}
 
@@ -128,6 +228,7 @@ public class SharedPreferencesHelper {
 		Editor editor = getEditor();
 		editor.putFloat(key, value);
 		editor.commit();
+		invalidateSnapshot();
 		logSave(key, value);
 	}
 
@@ -139,6 +240,7 @@ public class SharedPreferencesHelper {
 		Editor editor = getEditor();
 		editor.putFloat(key, value);
 		editor.apply();
+		invalidateSnapshot();
 		logSave(key, value);
 	}
 
@@ -315,12 +417,14 @@ public class SharedPreferencesHelper {
 			editor.remove(key);
 		}
 		editor.commit();
+		invalidateSnapshot();
 	}
 	
 	public void removeAllPreferences() {
 		Editor editor = getEditor();
 		editor.clear();
 		editor.commit();
+		invalidateSnapshot();
 	}
 	
 }
@@ -0,0 +1,107 @@
+package com.jdroid.android.utils;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable copy of the values of a shared preferences file. The primitive values are kept unboxed, sorted by key, so
+ * the reads don't allocate.
+ */
+public class SharedPreferencesSnapshot {
+
+	private static final byte TYPE_BOOLEAN = 0;
+	private static final byte TYPE_INT = 1;
+	private static final byte TYPE_LONG = 2;
+	private static final byte TYPE_FLOAT = 3;
+	private static final byte TYPE_OBJECT = 4;
+
+	private String[] keys;
+	private byte[] types;
+	private long[] primitiveValues;
+	private Object[] objectValues;
+
+	SharedPreferencesSnapshot(@NonNull Map<String, ?> values) {
+		keys = values.keySet().toArray(new String[values.size()]);
+		Arrays.sort(keys);
+		types = new byte[keys.length];
+		primitiveValues = new long[keys.length];
+		objectValues = new Object[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			Object value = values.get(keys[i]);
+			if (value instanceof Boolean) {
+				types[i] = TYPE_BOOLEAN;
+				primitiveValues[i] = (Boolean)value ? 1 : 0;
+			} else if (value instanceof Integer) {
+				types[i] = TYPE_INT;
+				primitiveValues[i] = (Integer)value;
+			} else if (value instanceof Long) {
+				types[i] = TYPE_LONG;
+				primitiveValues[i] = (Long)value;
+			} else if (value instanceof Float) {
+				types[i] = TYPE_FLOAT;
+				primitiveValues[i] = Float.floatToIntBits((Float)value);
+			} else if (value instanceof Set) {
+				types[i] = TYPE_OBJECT;
+				objectValues[i] = Collections.unmodifiableSet(new HashSet<>((Set<?>)value));
+			} else {
+				types[i] = TYPE_OBJECT;
+				objectValues[i] = value;
+			}
+		}
+	}
+
+	private int indexOf(String key, byte type) {
+		int index = Arrays.binarySearch(keys, key);
+		if (index >= 0 && types[index] != type) {
+			throw new ClassCastException("The preference " + key + " is not of the requested type");
+		}
+		return index;
+	}
+
+	public boolean contains(String key) {
+		return Arrays.binarySearch(keys, key) >= 0;
+	}
+
+	public int size() {
+		return keys.length;
+	}
+
+	public boolean getBoolean(String key, boolean defaultValue) {
+		int index = indexOf(key, TYPE_BOOLEAN);
+		return index >= 0 ? primitiveValues[index] != 0 : defaultValue;
+	}
+
+	public int getInt(String key, int defaultValue) {
+		int index = indexOf(key, TYPE_INT);
+		return index >= 0 ? (int)primitiveValues[index] : defaultValue;
+	}
+
+	public long getLong(String key, long defaultValue) {
+		int index = indexOf(key, TYPE_LONG);
+		return index >= 0 ? primitiveValues[index] : defaultValue;
+	}
+
+	public float getFloat(String key, float defaultValue) {
+		int index = indexOf(key, TYPE_FLOAT);
+		return index >= 0 ? Float.intBitsToFloat((int)primitiveValues[index]) : defaultValue;
+	}
+
+	@Nullable
+	public String getString(String key, @Nullable String defaultValue) {
+		int index = indexOf(key, TYPE_OBJECT);
+		return index >= 0 ? (String)objectValues[index] : defaultValue;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Nullable
+	public Set<String> getStringSet(String key, @Nullable Set<String> defaultValue) {
+		int index = indexOf(key, TYPE_OBJECT);
+		return index >= 0 ? (Set<String>)objectValues[index] : defaultValue;
+	}
+}
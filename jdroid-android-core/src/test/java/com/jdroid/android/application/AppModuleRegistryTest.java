@@ -0,0 +1,121 @@
+package com.jdroid.android.application;
+
+import android.app.Activity;
+import android.net.Uri;
+
+import com.jdroid.android.AbstractUnitTest;
+import com.jdroid.java.collections.Lists;
+
+import org.junit.Test;
+import org.robolectric.Robolectric;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+public class AppModuleRegistryTest extends AbstractUnitTest {
+
+	@Test
+	public void lookupTest() {
+		AppModuleRegistry appModuleRegistry = new AppModuleRegistry();
+		AppModule eagerAppModule = new TestAppModule();
+		appModuleRegistry.register("eager", eagerAppModule);
+		CountingAppModuleFactory appModuleFactory = new CountingAppModuleFactory();
+		appModuleRegistry.register("lazy", appModuleFactory);
+
+		assertEquals(Lists.newArrayList(eagerAppModule), appModuleRegistry.getCreated());
+		assertEquals(Lists.newArrayList("lazy"), appModuleRegistry.getNotCreatedAppModuleNames());
+		assertEquals(0, appModuleFactory.count.get());
+
+		AppModule lazyAppModule = appModuleRegistry.get("lazy");
+		assertSame(lazyAppModule, appModuleRegistry.get("lazy"));
+		assertEquals(1, appModuleFactory.count.get());
+		assertEquals(Lists.newArrayList(eagerAppModule, lazyAppModule), appModuleRegistry.getCreated());
+		assertTrue(appModuleRegistry.getNotCreatedAppModuleNames().isEmpty());
+		assertEquals(Lists.newArrayList("lazy"), appModuleRegistry.getTouchedAppModuleNames());
+
+		assertNull(appModuleRegistry.get("missing"));
+	}
+
+	@Test
+	public void getAllTest() {
+		AppModuleRegistry appModuleRegistry = new AppModuleRegistry();
+		CountingAppModuleFactory appModuleFactory1 = new CountingAppModuleFactory();
+		CountingAppModuleFactory appModuleFactory2 = new CountingAppModuleFactory();
+		appModuleRegistry.register("module1", appModuleFactory1);
+		appModuleRegistry.register("module2", appModuleFactory2);
+
+		assertEquals(2, appModuleRegistry.getAll().size());
+		assertEquals(1, appModuleFactory1.count.get());
+		assertEquals(1, appModuleFactory2.count.get());
+		assertEquals(Lists.newArrayList("module1", "module2"), appModuleRegistry.getTouchedAppModuleNames());
+	}
+
+	@Test
+	public void triggersTest() {
+		AppModuleRegistry appModuleRegistry = new AppModuleRegistry();
+		CountingAppModuleFactory activityAppModuleFactory = new CountingAppModuleFactory();
+		CountingAppModuleFactory uriAppModuleFactory = new CountingAppModuleFactory();
+		CountingAppModuleFactory jobAppModuleFactory = new CountingAppModuleFactory();
+		appModuleRegistry.register("activity", activityAppModuleFactory).triggeredByActivity(Activity.class);
+		appModuleRegistry.register("uri", uriAppModuleFactory).triggeredByUri("http://jdroidtools.com/billing");
+		appModuleRegistry.register("job", jobAppModuleFactory).triggeredByJob("syncJob");
+
+		appModuleRegistry.onUriOpened(Uri.parse("http://jdroidtools.com/other"));
+		appModuleRegistry.onJobStarted("otherJob");
+		assertTrue(appModuleRegistry.getCreated().isEmpty());
+
+		appModuleRegistry.onActivityCreated(Robolectric.buildActivity(Activity.class).get());
+		assertEquals(1, activityAppModuleFactory.count.get());
+
+		appModuleRegistry.onUriOpened(Uri.parse("http://jdroidtools.com/billing/products"));
+		appModuleRegistry.onUriOpened(Uri.parse("http://jdroidtools.com/billing/products"));
+		assertEquals(1, uriAppModuleFactory.count.get());
+
+		appModuleRegistry.onJobStarted("syncJob");
+		assertEquals(1, jobAppModuleFactory.count.get());
+
+		assertEquals(Lists.newArrayList("activity", "uri", "job"), appModuleRegistry.getTouchedAppModuleNames());
+		assertEquals(3, appModuleRegistry.getCreated().size());
+	}
+
+	@Test
+	public void concurrentLookupTest() throws InterruptedException {
+		final AppModuleRegistry appModuleRegistry = new AppModuleRegistry();
+		CountingAppModuleFactory appModuleFactory = new CountingAppModuleFactory();
+		appModuleRegistry.register("lazy", appModuleFactory);
+
+		Thread[] threads = new Thread[8];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					appModuleRegistry.get("lazy");
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread each : threads) {
+			each.join();
+		}
+		assertEquals(1, appModuleFactory.count.get());
+	}
+
+	private static class TestAppModule extends AbstractAppModule {
+	}
+
+	private static class CountingAppModuleFactory implements AppModuleFactory {
+
+		private AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public AppModule createAppModule() {
+			count.incrementAndGet();
+			return new TestAppModule();
+		}
+	}
+}
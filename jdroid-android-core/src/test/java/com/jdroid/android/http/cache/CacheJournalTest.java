@@ -0,0 +1,150 @@
+package com.jdroid.android.http.cache;
+
+import com.jdroid.android.AbstractUnitTest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class CacheJournalTest extends AbstractUnitTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void rebuildTest() throws IOException {
+		File directory = temporaryFolder.newFolder();
+		createFile(directory, "a", 3);
+		createFile(directory, "b", 5);
+
+		CacheJournal cacheJournal = new CacheJournal(directory);
+		assertEquals(2, cacheJournal.getEntriesCount());
+		assertEquals(8, cacheJournal.getTotalSize());
+		assertTrue(new File(directory, CacheJournal.JOURNAL_FILE_NAME).exists());
+		cacheJournal.close();
+	}
+
+	@Test
+	public void replayTest() throws IOException {
+		File directory = temporaryFolder.newFolder();
+		CacheJournal cacheJournal = new CacheJournal(directory);
+		write(cacheJournal, directory, "a", 10);
+		write(cacheJournal, directory, "b", 20);
+		write(cacheJournal, directory, "c", 30);
+		write(cacheJournal, directory, "b", 25);
+		cacheJournal.onRead("a");
+		new File(directory, "c").delete();
+		cacheJournal.onDeleted("c");
+		cacheJournal.close();
+
+		CacheJournal restoredCacheJournal = new CacheJournal(directory);
+		assertEquals(2, restoredCacheJournal.getEntriesCount());
+		assertEquals(35, restoredCacheJournal.getTotalSize());
+
+		// The access order is restored too, so "b" is the least recently used
+		restoredCacheJournal.trimToSize(10);
+		assertFalse(new File(directory, "b").exists());
+		assertTrue(new File(directory, "a").exists());
+		restoredCacheJournal.close();
+	}
+
+	@Test
+	public void trimToSizeTest() throws IOException {
+		File directory = temporaryFolder.newFolder();
+		CacheJournal cacheJournal = new CacheJournal(directory);
+		write(cacheJournal, directory, "a", 10);
+		write(cacheJournal, directory, "b", 10);
+		write(cacheJournal, directory, "c", 10);
+		cacheJournal.onRead("a");
+
+		assertEquals(1, cacheJournal.trimToSize(20));
+		assertEquals(2, cacheJournal.getEntriesCount());
+		assertEquals(20, cacheJournal.getTotalSize());
+		assertTrue(new File(directory, "a").exists());
+		assertFalse(new File(directory, "b").exists());
+		assertTrue(new File(directory, "c").exists());
+
+		assertEquals(0, cacheJournal.trimToSize(20));
+		cacheJournal.close();
+	}
+
+	@Test
+	public void reconcileTest() throws IOException {
+		File directory = temporaryFolder.newFolder();
+		CacheJournal cacheJournal = new CacheJournal(directory);
+		write(cacheJournal, directory, "a", 10);
+		write(cacheJournal, directory, "b", 20);
+		cacheJournal.close();
+
+		// Changes done without the journal
+		new File(directory, "a").delete();
+		createFile(directory, "c", 5);
+
+		CacheJournal reconciledCacheJournal = new CacheJournal(directory);
+		assertEquals(2, reconciledCacheJournal.getEntriesCount());
+		assertEquals(25, reconciledCacheJournal.getTotalSize());
+		reconciledCacheJournal.close();
+	}
+
+	@Test
+	public void tempFilesTest() throws IOException {
+		File directory = temporaryFolder.newFolder();
+		createFile(directory, "a", 10);
+		File tempFile = createFile(directory, "b" + CacheJournal.TEMP_FILE_SUFFIX, 20);
+		File staleTempFile = createFile(directory, "c" + CacheJournal.TEMP_FILE_SUFFIX, 30);
+		staleTempFile.setLastModified(0);
+
+		CacheJournal cacheJournal = new CacheJournal(directory);
+		assertEquals(1, cacheJournal.getEntriesCount());
+		assertEquals(10, cacheJournal.getTotalSize());
+		assertTrue(tempFile.exists());
+		assertFalse(staleTempFile.exists());
+		cacheJournal.close();
+
+		// The temporary files are not adopted when the journal is reconciled either
+		createFile(directory, "d" + CacheJournal.TEMP_FILE_SUFFIX, 40);
+		CacheJournal reconciledCacheJournal = new CacheJournal(directory);
+		assertEquals(1, reconciledCacheJournal.getEntriesCount());
+		assertEquals(10, reconciledCacheJournal.getTotalSize());
+		reconciledCacheJournal.close();
+	}
+
+	@Test
+	public void corruptedJournalTest() throws IOException {
+		File directory = temporaryFolder.newFolder();
+		createFile(directory, "a", 10);
+		FileWriter writer = new FileWriter(new File(directory, CacheJournal.JOURNAL_FILE_NAME));
+		writer.write("W a notANumber\n");
+		writer.close();
+
+		CacheJournal cacheJournal = new CacheJournal(directory);
+		assertEquals(1, cacheJournal.getEntriesCount());
+		assertEquals(10, cacheJournal.getTotalSize());
+		cacheJournal.close();
+	}
+
+	private void write(CacheJournal cacheJournal, File directory, String name, long size) throws IOException {
+		File file = createFile(directory, name, size);
+		cacheJournal.onWritten(file.getName(), file.length());
+	}
+
+	private File createFile(File directory, String name, long size) throws IOException {
+		File file = new File(directory, name);
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+		try {
+			randomAccessFile.setLength(size);
+		} finally {
+			randomAccessFile.close();
+		}
+		return file;
+	}
+}
@@ -0,0 +1,61 @@
+package com.jdroid.android.images;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.Bitmap;
+
+import com.jdroid.android.AbstractUnitTest;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+public class BitmapLruCacheTest extends AbstractUnitTest {
+
+	private static final int[] TRIM_LEVELS = new int[] { ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE,
+			ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW, ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL,
+			ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN, ComponentCallbacks2.TRIM_MEMORY_BACKGROUND,
+			ComponentCallbacks2.TRIM_MEMORY_MODERATE, ComponentCallbacks2.TRIM_MEMORY_COMPLETE };
+
+	@Test
+	public void remainingFractionTest() {
+		int previousFraction = 4;
+		for (int level : TRIM_LEVELS) {
+			int fraction = BitmapLruCache.getRemainingFraction(level);
+			assertTrue("Level " + level + " keeps more than a lower level", fraction <= previousFraction);
+			previousFraction = fraction;
+		}
+		assertEquals(0, BitmapLruCache.getRemainingFraction(ComponentCallbacks2.TRIM_MEMORY_COMPLETE));
+	}
+
+	@Test
+	public void evictionTest() {
+		Bitmap bitmap = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+		BitmapLruCache bitmapLruCache = new BitmapLruCache(BitmapPool.getSizeBytes(bitmap));
+		bitmapLruCache.put("a", bitmap);
+		bitmapLruCache.put("b", Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888));
+
+		assertEquals(null, bitmapLruCache.get("a"));
+		assertFalse(bitmap.isRecycled());
+
+		BitmapLruCache.trimAll(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+		assertEquals(0, bitmapLruCache.size());
+	}
+
+	@Test
+	public void pooledEvictionTest() {
+		Bitmap bitmap = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+		BitmapPool bitmapPool = new BitmapPool(BitmapPool.getSizeBytes(bitmap) * 4);
+		BitmapLruCache bitmapLruCache = new BitmapLruCache(BitmapPool.getSizeBytes(bitmap), bitmapPool);
+		bitmapLruCache.put("a", bitmap);
+		bitmapLruCache.put("b", Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888));
+
+		assertEquals(bitmap, bitmapPool.take(10, 10, Bitmap.Config.ARGB_8888));
+
+		bitmapPool.put(bitmap);
+		bitmapPool.clear();
+		assertEquals(0, bitmapPool.getSizeBytes());
+		assertFalse(bitmap.isRecycled());
+	}
+}
@@ -0,0 +1,79 @@
+package com.jdroid.android.images;
+
+import android.graphics.Bitmap;
+import android.graphics.Bitmap.CompressFormat;
+import android.net.Uri;
+
+import com.jdroid.android.AbstractUnitTest;
+import com.jdroid.android.application.AbstractApplication;
+import com.jdroid.java.utils.FileUtils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+public class ImageEncoderTest extends AbstractUnitTest {
+
+	@Test
+	public void encodeToStreamTest() {
+		Bitmap bitmap = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		ImageEncoder.encode(bitmap, CompressFormat.JPEG, ImageEncoder.DEFAULT_QUALITY, outputStream);
+
+		// The encoded content is flushed, and the stream is left open
+		int size = outputStream.size();
+		assertTrue(size > 0);
+		outputStream.write(0);
+		assertEquals(size + 1, outputStream.size());
+	}
+
+	@Test
+	public void encodeToFileTest() {
+		Bitmap bitmap = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+		File file = ImageEncoder.createTempImageFile(CompressFormat.PNG);
+		try {
+			ImageEncoder.encode(bitmap, CompressFormat.PNG, ImageEncoder.DEFAULT_QUALITY, file);
+			assertTrue(file.length() > 0);
+		} finally {
+			FileUtils.forceDelete(file);
+		}
+	}
+
+	@Test
+	public void createTempImageFileTest() {
+		verifyTempImageFile(CompressFormat.JPEG, ".jpg");
+		verifyTempImageFile(CompressFormat.PNG, ".png");
+		verifyTempImageFile(CompressFormat.WEBP, ".webp");
+	}
+
+	private void verifyTempImageFile(CompressFormat format, String extension) {
+		File file = ImageEncoder.createTempImageFile(format);
+		try {
+			assertTrue(file.getName().endsWith(extension));
+			assertEquals(AbstractApplication.get().getCacheDir(), file.getParentFile());
+		} finally {
+			FileUtils.forceDelete(file);
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void encodedInputStreamFailureTest() throws IOException {
+		Uri uri = Uri.fromFile(new File(AbstractApplication.get().getCacheDir(), "missing.jpg"));
+		InputStream inputStream = ImageEncoder.openEncodedInputStream(uri, null, null, CompressFormat.JPEG, ImageEncoder.DEFAULT_QUALITY);
+		try {
+			byte[] buffer = new byte[1024];
+			// The failure is reported instead of the end of the stream, so a truncated image is never uploaded
+			while (inputStream.read(buffer) != -1) {
+				// Consume the stream
+			}
+		} finally {
+			inputStream.close();
+		}
+	}
+}
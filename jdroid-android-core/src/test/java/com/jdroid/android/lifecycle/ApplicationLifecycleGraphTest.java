@@ -0,0 +1,195 @@
+package com.jdroid.android.lifecycle;
+
+import android.content.Context;
+import android.support.annotation.NonNull;
+
+import com.jdroid.android.AbstractUnitTest;
+import com.jdroid.android.application.AbstractApplication;
+import com.jdroid.java.collections.Lists;
+import com.jdroid.java.exception.UnexpectedException;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+public class ApplicationLifecycleGraphTest extends AbstractUnitTest {
+
+	@Test
+	public void sortTest() {
+		List<String> invocations = Lists.newArrayList();
+		CallbackA callbackA = new CallbackA(invocations);
+		CallbackB callbackB = new CallbackB(invocations);
+		CallbackC callbackC = new CallbackC(invocations);
+		callbackA.initOrder = 10;
+		callbackA.dependencies = Lists.<Class<? extends ApplicationLifecycleCallback>>newArrayList(CallbackB.class);
+		callbackC.initOrder = 5;
+
+		ApplicationLifecycleGraph graph = new ApplicationLifecycleGraph(Lists.<ApplicationLifecycleCallback>newArrayList(callbackA, callbackB, callbackC));
+
+		// C has a higher init order than B, and A waits for B
+		assertEquals(Lists.newArrayList(callbackC, callbackB, callbackA), graph.getSortedCallbacks());
+
+		graph.onCreate(AbstractApplication.get());
+		assertEquals(Lists.newArrayList("C", "B", "A"), invocations);
+	}
+
+	@Test
+	public void notRegisteredDependencyTest() {
+		List<String> invocations = Lists.newArrayList();
+		CallbackA callbackA = new CallbackA(invocations);
+		callbackA.dependencies = Lists.<Class<? extends ApplicationLifecycleCallback>>newArrayList(CallbackB.class);
+
+		ApplicationLifecycleGraph graph = new ApplicationLifecycleGraph(Lists.<ApplicationLifecycleCallback>newArrayList(callbackA));
+		graph.onCreate(AbstractApplication.get());
+		assertEquals(Lists.newArrayList("A"), invocations);
+	}
+
+	@Test
+	public void cycleTest() {
+		List<String> invocations = Lists.newArrayList();
+		CallbackA callbackA = new CallbackA(invocations);
+		CallbackB callbackB = new CallbackB(invocations);
+		CallbackC callbackC = new CallbackC(invocations);
+		callbackA.dependencies = Lists.<Class<? extends ApplicationLifecycleCallback>>newArrayList(CallbackB.class);
+		callbackB.dependencies = Lists.<Class<? extends ApplicationLifecycleCallback>>newArrayList(CallbackA.class);
+
+		try {
+			new ApplicationLifecycleGraph(Lists.<ApplicationLifecycleCallback>newArrayList(callbackA, callbackB, callbackC));
+			fail("The circular dependency should have been detected");
+		} catch (UnexpectedException e) {
+			assertTrue(e.getMessage().contains(CallbackA.class.getName()));
+			assertTrue(e.getMessage().contains(CallbackB.class.getName()));
+			assertFalse(e.getMessage().contains(CallbackC.class.getName()));
+		}
+	}
+
+	@Test
+	public void disabledDependencyTest() {
+		List<String> invocations = Lists.newArrayList();
+		CallbackA callbackA = new CallbackA(invocations);
+		CallbackB callbackB = new CallbackB(invocations);
+		callbackA.dependencies = Lists.<Class<? extends ApplicationLifecycleCallback>>newArrayList(CallbackB.class);
+		callbackB.enabled = false;
+
+		ApplicationLifecycleGraph graph = new ApplicationLifecycleGraph(Lists.<ApplicationLifecycleCallback>newArrayList(callbackA, callbackB));
+
+		// The disabled dependency is considered satisfied
+		graph.onCreate(AbstractApplication.get());
+		assertEquals(Lists.newArrayList("A"), invocations);
+	}
+
+	@Test
+	public void backgroundDependencyTest() {
+		List<String> invocations = Collections.synchronizedList(Lists.<String>newArrayList());
+		CallbackA callbackA = new CallbackA(invocations);
+		CallbackB callbackB = new CallbackB(invocations);
+		callbackA.dependencies = Lists.<Class<? extends ApplicationLifecycleCallback>>newArrayList(CallbackB.class);
+		callbackB.mainThreadRequired = false;
+
+		ApplicationLifecycleGraph graph = new ApplicationLifecycleGraph(Lists.<ApplicationLifecycleCallback>newArrayList(callbackA, callbackB));
+
+		// The main thread callback waits for its background dependency
+		graph.onCreate(AbstractApplication.get());
+		assertEquals(Lists.newArrayList("B", "A"), invocations);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void mainThreadFailureTest() {
+		List<String> invocations = Lists.newArrayList();
+		CallbackA callbackA = new CallbackA(invocations);
+		callbackA.failure = new IllegalStateException();
+
+		new ApplicationLifecycleGraph(Lists.<ApplicationLifecycleCallback>newArrayList(callbackA)).onCreate(AbstractApplication.get());
+	}
+
+	@Test
+	public void dependencyFailureTest() {
+		List<String> invocations = Collections.synchronizedList(Lists.<String>newArrayList());
+		CallbackA callbackA = new CallbackA(invocations);
+		CallbackB callbackB = new CallbackB(invocations);
+		callbackA.dependencies = Lists.<Class<? extends ApplicationLifecycleCallback>>newArrayList(CallbackB.class);
+		callbackB.mainThreadRequired = false;
+		callbackB.failure = new AssertionError();
+
+		try {
+			new ApplicationLifecycleGraph(Lists.<ApplicationLifecycleCallback>newArrayList(callbackA, callbackB)).onCreate(AbstractApplication.get());
+			fail("The failure of the background dependency should have been rethrown");
+		} catch (AssertionError e) {
+			assertEquals(callbackB.failure, e);
+		}
+		assertEquals(Lists.newArrayList("B"), invocations);
+	}
+
+	private static abstract class TestCallback extends ApplicationLifecycleCallback {
+
+		private List<String> invocations;
+		Integer initOrder = 0;
+		List<Class<? extends ApplicationLifecycleCallback>> dependencies = Lists.newArrayList();
+		Boolean enabled = true;
+		Boolean mainThreadRequired = true;
+		Throwable failure;
+
+		TestCallback(List<String> invocations) {
+			this.invocations = invocations;
+		}
+
+		@Override
+		public void onCreate(Context context) {
+			invocations.add(getClass().getSimpleName().substring("Callback".length()));
+			if (failure instanceof RuntimeException) {
+				throw (RuntimeException)failure;
+			} else if (failure instanceof Error) {
+				throw (Error)failure;
+			}
+		}
+
+		@NonNull
+		@Override
+		public Integer getInitOrder() {
+			return initOrder;
+		}
+
+		@NonNull
+		@Override
+		public List<Class<? extends ApplicationLifecycleCallback>> getDependencies() {
+			return dependencies;
+		}
+
+		@Override
+		public Boolean isEnabled() {
+			return enabled;
+		}
+
+		@Override
+		public Boolean isMainThreadRequired() {
+			return mainThreadRequired;
+		}
+	}
+
+	private static class CallbackA extends TestCallback {
+
+		CallbackA(List<String> invocations) {
+			super(invocations);
+		}
+	}
+
+	private static class CallbackB extends TestCallback {
+
+		CallbackB(List<String> invocations) {
+			super(invocations);
+		}
+	}
+
+	private static class CallbackC extends TestCallback {
+
+		CallbackC(List<String> invocations) {
+			super(invocations);
+		}
+	}
+}
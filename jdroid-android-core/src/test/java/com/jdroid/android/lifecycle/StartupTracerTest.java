@@ -0,0 +1,74 @@
+package com.jdroid.android.lifecycle;
+
+import android.app.Activity;
+
+import com.jdroid.android.AbstractUnitTest;
+import com.jdroid.android.application.AbstractApplication;
+import com.jdroid.java.json.JSONArray;
+import com.jdroid.java.json.JSONException;
+import com.jdroid.java.json.JSONObject;
+import com.jdroid.java.utils.ReflectionUtils;
+
+import org.junit.Test;
+import org.robolectric.Robolectric;
+import org.robolectric.shadows.ShadowLooper;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+public class StartupTracerTest extends AbstractUnitTest {
+
+	@Test
+	public void getReportTest() throws JSONException {
+		restartTimeline();
+		// The activity is created before the messages queued during the application creation are processed
+		ShadowLooper.pauseMainLooper();
+		StartupTracer.registerActivityLifecycleCallbacks(AbstractApplication.get());
+		assertNull(StartupTracer.getReport());
+
+		String phaseName = "load \"quoted\" \\ phase";
+		StartupTracer.begin(phaseName).end();
+		Robolectric.buildActivity(Activity.class).create().start().resume();
+		ShadowLooper.unPauseMainLooper();
+
+		String report = StartupTracer.getReport();
+		assertNotNull(report);
+		JSONObject jsonObject = new JSONObject(report);
+		assertEquals(Activity.class.getName(), jsonObject.getString("firstActivity"));
+		assertTrue(jsonObject.getLong("totalMicros") >= 0);
+
+		JSONArray phasesJsonArray = jsonObject.getJSONArray("phases");
+		JSONObject phaseJsonObject = phasesJsonArray.getJSONObject(phasesJsonArray.length() - 1);
+		assertEquals(phaseName, phaseJsonObject.getString("name"));
+		assertEquals(Thread.currentThread().getName(), phaseJsonObject.getString("thread"));
+		assertTrue(phaseJsonObject.getLong("durationMicros") >= 0);
+
+		// The phases ended after the first activity is resumed are ignored
+		StartupTracer.begin("late").end();
+		Robolectric.buildActivity(Activity.class).create().start().resume();
+		assertEquals(report, StartupTracer.getReport());
+	}
+
+	@Test
+	public void discardedWithoutActivityLaunchTest() {
+		restartTimeline();
+		ShadowLooper.pauseMainLooper();
+		StartupTracer.registerActivityLifecycleCallbacks(AbstractApplication.get());
+		StartupTracer.begin("onCreate").end();
+		// The process was started by a job or a receiver, so no activity is created after the application
+		ShadowLooper.unPauseMainLooper();
+
+		StartupTracer.begin("late").end();
+		Robolectric.buildActivity(Activity.class).create().start().resume();
+		assertNull(StartupTracer.getReport());
+	}
+
+	private void restartTimeline() {
+		// The timeline is finished only once per process, so it is restarted for the test
+		ReflectionUtils.setStaticField(StartupTracer.class, "finishNanos", null);
+		ReflectionUtils.setStaticField(StartupTracer.class, "report", null);
+		ReflectionUtils.setStaticField(StartupTracer.class, "activityLaunch", null);
+	}
+}
@@ -0,0 +1,183 @@
+package com.jdroid.android.sqlite.repository;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+
+import com.jdroid.android.AbstractUnitTest;
+import com.jdroid.android.application.AbstractApplication;
+import com.jdroid.android.sqlite.Column;
+import com.jdroid.android.sqlite.DataType;
+import com.jdroid.android.sqlite.Reference;
+import com.jdroid.android.sqlite.SQLiteHelper;
+import com.jdroid.java.collections.Lists;
+import com.jdroid.java.collections.Maps;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+
+public class SQLiteRepositoryTest extends AbstractUnitTest {
+
+	private TestMapRepository repository;
+
+	@Before
+	public void before() {
+		SQLiteHelper dbHelper = new SQLiteHelper(AbstractApplication.get());
+		repository = new TestMapRepository(dbHelper);
+		dbHelper.getWritableDatabase().execSQL(repository.getCreateTableSQL());
+	}
+
+	@Test
+	public void replaceChildrenWithSameIdUnderTwoParentsTest() {
+		repository.replaceMapChildren(newMap("key", "value1"), "parent1");
+		repository.replaceMapChildren(newMap("key", "value2"), "parent2");
+
+		assertEquals(newMap("key", "value1"), repository.getChildrenMap("parent1"));
+		assertEquals(newMap("key", "value2"), repository.getChildrenMap("parent2"));
+
+		// Only the row of the replaced parent is updated
+		repository.replaceMapChildren(newMap("key", "value3"), "parent1");
+		assertEquals(newMap("key", "value3"), repository.getChildrenMap("parent1"));
+		assertEquals(newMap("key", "value2"), repository.getChildrenMap("parent2"));
+		assertEquals(2L, repository.getSize().longValue());
+
+		// Only the rows of the replaced parent are deleted
+		repository.replaceMapChildren(Maps.<String, String>newHashMap(), "parent1");
+		assertEquals(0, repository.getChildrenMap("parent1").size());
+		assertEquals(newMap("key", "value2"), repository.getChildrenMap("parent2"));
+	}
+
+	@Test
+	public void replaceNotifiesUnchangedItemsTest() {
+		final List<String> updatedIds = Lists.newArrayList();
+		repository.setEntityChildrenListener(new EntityChildrenListenerAdapter() {
+
+			@Override
+			public void onUpdated(StringEntity item) {
+				updatedIds.add(item.getId());
+			}
+		});
+
+		repository.replaceMapChildren(newMap("key", "value"), "parent");
+		assertEquals(0, updatedIds.size());
+
+		// The row doesn't change, but its children could have changed, so the listener is notified anyway
+		repository.replaceMapChildren(newMap("key", "value"), "parent");
+		assertEquals(Lists.newArrayList("key"), updatedIds);
+	}
+
+	private Map<String, String> newMap(String key, String value) {
+		Map<String, String> map = Maps.newHashMap();
+		map.put(key, value);
+		return map;
+	}
+
+	private static class TestMapRepository extends MapRepository {
+
+		TestMapRepository(SQLiteHelper dbHelper) {
+			super(dbHelper);
+		}
+
+		@Override
+		protected String getTableName() {
+			return "TestMap";
+		}
+
+		@Override
+		protected Column[] getColumns() {
+			return TestMapColumns.values();
+		}
+	}
+
+	private static class EntityChildrenListenerAdapter implements EntityChildrenListener<StringEntity> {
+
+		@Override
+		public void onPreStored(StringEntity item) {
+			// Do Nothing
+		}
+
+		@Override
+		public void onStored(StringEntity item) {
+			// Do Nothing
+		}
+
+		@Override
+		public void onUpdated(StringEntity item) {
+			// Do Nothing
+		}
+
+		@Override
+		public void onLoaded(StringEntity item) {
+			// Do Nothing
+		}
+
+		@Override
+		public void onRemoved(StringEntity item) {
+			// Do Nothing
+		}
+	}
+
+	private enum TestMapColumns implements Column {
+
+		ID(Column.ID, DataType.TEXT, Boolean.FALSE, Boolean.TRUE),
+		PARENT_ID(Column.PARENT_ID, DataType.TEXT, Boolean.FALSE, Boolean.TRUE),
+		VALUE(Column.VALUE, DataType.TEXT, Boolean.TRUE, Boolean.FALSE);
+
+		private String columnName;
+		private DataType dataType;
+		private Boolean optional;
+		private Boolean unique;
+
+		TestMapColumns(String columnName, DataType dataType, Boolean optional, Boolean unique) {
+			this.columnName = columnName;
+			this.dataType = dataType;
+			this.optional = optional;
+			this.unique = unique;
+		}
+
+		@Override
+		public <T> void addValue(ContentValues values, T value) {
+			dataType.writeValue(values, columnName, value);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public <E> E readValue(Cursor cursor) {
+			return (E)dataType.readValue(cursor, columnName);
+		}
+
+		@Override
+		public DataType getDataType() {
+			return dataType;
+		}
+
+		@Override
+		public String getColumnName() {
+			return columnName;
+		}
+
+		@Override
+		public String getExtraQualifier() {
+			return null;
+		}
+
+		@Override
+		public Boolean isOptional() {
+			return optional;
+		}
+
+		@Override
+		public Boolean isUnique() {
+			return unique;
+		}
+
+		@Override
+		public Reference getReference() {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,159 @@
+package com.jdroid.android.usecase;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Message;
+
+import com.jdroid.android.AbstractUnitTest;
+import com.jdroid.android.usecase.listener.UseCaseListener;
+import com.jdroid.java.collections.Lists;
+import com.jdroid.java.exception.AbstractException;
+
+import org.junit.Test;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertSame;
+
+public class AbstractUseCaseTest extends AbstractUnitTest {
+
+	@Test
+	public void failureNotificationTest() {
+		SampleUseCase useCase = new SampleUseCase();
+		useCase.failure = new RuntimeException("failure");
+		CountingListener listener = new CountingListener();
+		useCase.addListener(listener);
+		useCase.setHandler(new Handler(Looper.getMainLooper()));
+
+		ShadowLooper.pauseMainLooper();
+		useCase.run();
+		AbstractException exception = useCase.getAbstractException();
+		// A new execution starts before the failure is notified
+		useCase.markAsInProgress();
+		ShadowLooper.unPauseMainLooper();
+
+		assertEquals(1, listener.failures);
+		assertNotNull(listener.lastException);
+		assertSame(exception, listener.lastException);
+	}
+
+	@Test
+	public void listenersTest() {
+		SampleUseCase useCase = new SampleUseCase();
+		CountingListener listener = new CountingListener();
+		useCase.addListener(listener);
+		useCase.addListener(listener);
+
+		List<UseCaseListener> listeners = useCase.getListeners();
+		assertEquals(1, listeners.size());
+
+		// The returned list is a copy
+		listeners.add(new CountingListener());
+		assertEquals(1, useCase.getListeners().size());
+
+		useCase.removeListener(listener);
+		assertEquals(0, useCase.getListeners().size());
+	}
+
+	/**
+	 * Verifies that repeated executions dispatch the same notification runnables and iterate the same listeners array,
+	 * so the notifications don't allocate once the use case has been executed.
+	 */
+	@Test
+	public void notificationsReuseTest() throws Exception {
+		SampleUseCase useCase = new SampleUseCase();
+		useCase.addListener(new CountingListener());
+		useCase.addListener(new CountingListener());
+		RecordingHandler handler = new RecordingHandler();
+		useCase.setHandler(handler);
+		Field listenersField = AbstractUseCase.class.getDeclaredField("listeners");
+		listenersField.setAccessible(true);
+
+		useCase.run();
+		List<Runnable> firstRunnables = Lists.newArrayList(handler.runnables);
+		Object firstListeners = listenersField.get(useCase);
+		handler.runnables.clear();
+
+		useCase.run();
+		assertEquals(firstRunnables.size(), handler.runnables.size());
+		for (int i = 0; i < firstRunnables.size(); i++) {
+			assertSame(firstRunnables.get(i), handler.runnables.get(i));
+		}
+		assertSame(firstListeners, listenersField.get(useCase));
+
+		// The failure notification is reused too
+		useCase.failure = new RuntimeException("failure");
+		handler.runnables.clear();
+		useCase.run();
+		Runnable failureRunnable = handler.runnables.get(handler.runnables.size() - 1);
+		handler.runnables.clear();
+		useCase.run();
+		assertSame(failureRunnable, handler.runnables.get(handler.runnables.size() - 1));
+		assertSame(firstListeners, listenersField.get(useCase));
+	}
+
+	private static class SampleUseCase extends AbstractUseCase {
+
+		private RuntimeException failure;
+
+		@Override
+		protected void doExecute() {
+			if (failure != null) {
+				throw failure;
+			}
+		}
+
+		@Override
+		protected Boolean timingTrackingEnabled() {
+			return false;
+		}
+	}
+
+	private static class CountingListener implements UseCaseListener {
+
+		private int starts;
+		private int finishes;
+		private int failures;
+		private AbstractException lastException;
+
+		@Override
+		public void onStartUseCase() {
+			starts++;
+		}
+
+		@Override
+		public void onUpdateUseCase() {
+			// Do Nothing
+		}
+
+		@Override
+		public void onFinishFailedUseCase(AbstractException abstractException) {
+			failures++;
+			lastException = abstractException;
+		}
+
+		@Override
+		public void onFinishUseCase() {
+			finishes++;
+		}
+	}
+
+	private static class RecordingHandler extends Handler {
+
+		private List<Runnable> runnables = Lists.newArrayList();
+
+		public RecordingHandler() {
+			super(Looper.getMainLooper());
+		}
+
+		@Override
+		public boolean sendMessageAtTime(Message msg, long uptimeMillis) {
+			runnables.add(msg.getCallback());
+			return super.sendMessageAtTime(msg, uptimeMillis);
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package com.jdroid.android.usecase;
+
+import com.jdroid.android.AbstractUnitTest;
+
+import org.junit.Test;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+public class UseCaseCoalescerTest extends AbstractUnitTest {
+
+	@Test
+	public void inFlightExecutionTest() {
+		SampleUseCase follower = new SampleUseCase("inFlight", 0);
+		SampleUseCase leader = new SampleUseCase("inFlight", 0);
+		leader.nestedUseCase = follower;
+		leader.run();
+
+		assertTrue(leader.isFinishSuccessful());
+		assertTrue(follower.isFinishSuccessful());
+		assertEquals(1, leader.executions);
+		assertEquals(0, follower.executions);
+		assertEquals("inFlight-result", follower.result);
+	}
+
+	@Test
+	public void failedExecutionTest() {
+		SampleUseCase follower = new SampleUseCase("failed", 0);
+		SampleUseCase leader = new SampleUseCase("failed", 0);
+		leader.nestedUseCase = follower;
+		leader.failure = new RuntimeException("failure");
+		leader.run();
+
+		assertTrue(leader.isFinishFailed());
+		assertTrue(follower.isFinishFailed());
+		assertEquals(0, follower.executions);
+		assertSame(leader.getAbstractException(), follower.getAbstractException());
+
+		// The failures are not cached
+		SampleUseCase other = new SampleUseCase("failed", 0);
+		other.run();
+		assertTrue(other.isFinishSuccessful());
+		assertEquals(1, other.executions);
+	}
+
+	@Test
+	public void cachedResultTest() {
+		SampleUseCase first = new SampleUseCase("cached", 60000);
+		first.run();
+		SampleUseCase second = new SampleUseCase("cached", 60000);
+		second.run();
+
+		assertTrue(second.isFinishSuccessful());
+		assertEquals(1, first.executions);
+		assertEquals(0, second.executions);
+		assertEquals("cached-result", second.result);
+	}
+
+	@Test
+	public void expiredResultTest() throws InterruptedException {
+		SampleUseCase first = new SampleUseCase("expired", 1);
+		first.run();
+		Thread.sleep(10);
+		int cachedResultsCount = UseCaseCoalescer.get().getCachedResultsCount();
+
+		SampleUseCase second = new SampleUseCase("expired", 1);
+		second.run();
+
+		assertEquals(1, second.executions);
+		assertTrue(UseCaseCoalescer.get().getCachedResultsCount() <= cachedResultsCount);
+	}
+
+	@Test
+	public void differentKeysTest() {
+		SampleUseCase follower = new SampleUseCase("key2", 0);
+		SampleUseCase leader = new SampleUseCase("key1", 0);
+		leader.nestedUseCase = follower;
+		leader.run();
+
+		assertEquals(1, leader.executions);
+		assertEquals(1, follower.executions);
+		assertEquals("key2-result", follower.result);
+	}
+
+	@Test
+	public void notCoalescedTest() {
+		SampleUseCase follower = new SampleUseCase(null, 0);
+		SampleUseCase leader = new SampleUseCase(null, 0);
+		leader.nestedUseCase = follower;
+		leader.run();
+
+		assertEquals(1, leader.executions);
+		assertEquals(1, follower.executions);
+		assertNull(leader.getAbstractException());
+	}
+
+	private static class SampleUseCase extends AbstractUseCase {
+
+		private String coalescingKey;
+		private long timeToLive;
+		private SampleUseCase nestedUseCase;
+		private RuntimeException failure;
+
+		private int executions;
+		private String result;
+
+		SampleUseCase(String coalescingKey, long timeToLive) {
+			this.coalescingKey = coalescingKey;
+			this.timeToLive = timeToLive;
+		}
+
+		@Override
+		protected void doExecute() {
+			executions++;
+			if (nestedUseCase != null) {
+				nestedUseCase.run();
+			}
+			if (failure != null) {
+				throw failure;
+			}
+			result = coalescingKey + "-result";
+		}
+
+		@Override
+		protected String getCoalescingKey() {
+			return coalescingKey;
+		}
+
+		@Override
+		protected long getCoalescingResultTimeToLive() {
+			return timeToLive;
+		}
+
+		@Override
+		protected Object getCoalescingResult() {
+			return result;
+		}
+
+		@Override
+		protected void onCoalescedExecution(Object result) {
+			this.result = (String)result;
+		}
+
+		@Override
+		protected Boolean timingTrackingEnabled() {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package com.jdroid.android.utils;
+
+import com.jdroid.android.AbstractUnitTest;
+import com.jdroid.java.collections.Maps;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+public class SharedPreferencesSnapshotTest extends AbstractUnitTest {
+
+	@Test
+	public void gettersTest() {
+		Map<String, Object> values = Maps.newHashMap();
+		values.put("boolean", true);
+		values.put("int", -5);
+		values.put("long", Long.MAX_VALUE);
+		values.put("float", 1.5f);
+		values.put("string", "value");
+		values.put("stringSet", newStringSet("a", "b"));
+		SharedPreferencesSnapshot snapshot = new SharedPreferencesSnapshot(values);
+
+		assertEquals(6, snapshot.size());
+		assertTrue(snapshot.getBoolean("boolean", false));
+		assertEquals(-5, snapshot.getInt("int", 0));
+		assertEquals(Long.MAX_VALUE, snapshot.getLong("long", 0));
+		assertEquals(1.5f, snapshot.getFloat("float", 0));
+		assertEquals("value", snapshot.getString("string", null));
+		assertEquals(newStringSet("a", "b"), snapshot.getStringSet("stringSet", null));
+	}
+
+	@Test
+	public void defaultValuesTest() {
+		SharedPreferencesSnapshot snapshot = new SharedPreferencesSnapshot(Maps.<String, Object>newHashMap());
+
+		assertEquals(0, snapshot.size());
+		assertFalse(snapshot.contains("missing"));
+		assertTrue(snapshot.getBoolean("missing", true));
+		assertEquals(7, snapshot.getInt("missing", 7));
+		assertEquals(7L, snapshot.getLong("missing", 7L));
+		assertEquals(7f, snapshot.getFloat("missing", 7f));
+		assertEquals("default", snapshot.getString("missing", "default"));
+		assertNull(snapshot.getStringSet("missing", null));
+	}
+
+	@Test
+	public void containsTest() {
+		Map<String, Object> values = Maps.newHashMap();
+		values.put("b", 1);
+		values.put("a", 2);
+		values.put("c", 3);
+		SharedPreferencesSnapshot snapshot = new SharedPreferencesSnapshot(values);
+
+		assertTrue(snapshot.contains("a"));
+		assertTrue(snapshot.contains("b"));
+		assertTrue(snapshot.contains("c"));
+		assertFalse(snapshot.contains("d"));
+		assertEquals(2, snapshot.getInt("a", 0));
+		assertEquals(1, snapshot.getInt("b", 0));
+		assertEquals(3, snapshot.getInt("c", 0));
+	}
+
+	@Test(expected = ClassCastException.class)
+	public void typeMismatchTest() {
+		Map<String, Object> values = Maps.newHashMap();
+		values.put("int", 1);
+		new SharedPreferencesSnapshot(values).getLong("int", 0);
+	}
+
+	@Test(expected = ClassCastException.class)
+	public void primitiveAsStringTest() {
+		Map<String, Object> values = Maps.newHashMap();
+		values.put("boolean", true);
+		new SharedPreferencesSnapshot(values).getString("boolean", null);
+	}
+
+	@Test
+	public void stringSetCopyTest() {
+		Set<String> stringSet = newStringSet("a");
+		Map<String, Object> values = Maps.newHashMap();
+		values.put("stringSet", stringSet);
+		SharedPreferencesSnapshot snapshot = new SharedPreferencesSnapshot(values);
+
+		// Later changes to the original set are not visible on the snapshot
+		stringSet.add("b");
+		Set<String> snapshotStringSet = snapshot.getStringSet("stringSet", null);
+		assertNotSame(stringSet, snapshotStringSet);
+		assertEquals(newStringSet("a"), snapshotStringSet);
+
+		try {
+			snapshotStringSet.add("c");
+			throw new AssertionError("The set of the snapshot should be unmodifiable");
+		} catch (UnsupportedOperationException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void helperSnapshotTest() {
+		SharedPreferencesHelper sharedPreferencesHelper = SharedPreferencesHelper.get("snapshotTest");
+		sharedPreferencesHelper.savePreference("counter", 1);
+		SharedPreferencesSnapshot snapshot = sharedPreferencesHelper.getSnapshot();
+		assertEquals(1, snapshot.getInt("counter", 0));
+		assertSame(snapshot, sharedPreferencesHelper.getSnapshot());
+
+		// The snapshot is replaced after a write
+		sharedPreferencesHelper.savePreference("counter", 2);
+		assertEquals(2, sharedPreferencesHelper.getSnapshot().getInt("counter", 0));
+		assertEquals(1, snapshot.getInt("counter", 0));
+
+		// And after a write done directly with the editor
+		sharedPreferencesHelper.getEditor().putLong("time", 10L).commit();
+		assertEquals(10L, sharedPreferencesHelper.getSnapshot().getLong("time", 0));
+	}
+
+	private Set<String> newStringSet(String... values) {
+		return new HashSet<>(Arrays.asList(values));
+	}
+}
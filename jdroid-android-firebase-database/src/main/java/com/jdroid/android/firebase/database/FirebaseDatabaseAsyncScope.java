@@ -0,0 +1,184 @@
+package com.jdroid.android.firebase.database;
+
+import com.google.android.gms.tasks.OnCompleteListener;
+import com.google.android.gms.tasks.RuntimeExecutionException;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+import com.jdroid.java.collections.Lists;
+import com.jdroid.java.date.DateUtils;
+import com.jdroid.java.exception.UnexpectedException;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Groups asynchronous database operations which share a timeout and can be cancelled together. The operations are
+ * sent as soon as they are registered, so many of them can be in flight while a single thread waits for all.
+ */
+public class FirebaseDatabaseAsyncScope {
+
+	private long deadline;
+	private boolean cancelled = false;
+	private List<PendingOperation> pendingOperations = Lists.newArrayList();
+
+	/**
+	 * @param timeout the max time to wait for all the operations of the scope
+	 * @param timeUnit the unit of the timeout
+	 */
+	public FirebaseDatabaseAsyncScope(long timeout, TimeUnit timeUnit) {
+		deadline = DateUtils.nowMillis() + timeUnit.toMillis(timeout);
+	}
+
+	/**
+	 * Reads the query once, completing the returned task with its snapshot.
+	 *
+	 * @param query the query to read
+	 * @return the task of the read
+	 */
+	public Task<DataSnapshot> read(final Query query) {
+		final TaskCompletionSource<DataSnapshot> source = new TaskCompletionSource<>();
+		ValueEventListener listener = new ValueEventListener() {
+
+			@Override
+			public void onDataChange(DataSnapshot dataSnapshot) {
+				source.trySetResult(dataSnapshot);
+			}
+
+			@Override
+			public void onCancelled(DatabaseError databaseError) {
+				source.trySetException(new FirebaseDatabaseException(databaseError));
+			}
+		};
+		if (register(new PendingOperation(source, query, listener))) {
+			query.addListenerForSingleValueEvent(listener);
+		}
+		return source.getTask();
+	}
+
+	/**
+	 * Tracks a write already sent to the database. Cancelling the scope fails the returned task, but the write is not
+	 * rolled back.
+	 *
+	 * @param writeTask the task returned by the database write
+	 * @return the task of the write
+	 */
+	public Task<Void> write(Task<Void> writeTask) {
+		final TaskCompletionSource<Void> source = new TaskCompletionSource<>();
+		register(new PendingOperation(source, null, null));
+		writeTask.addOnCompleteListener(new OnCompleteListener<Void>() {
+
+			@Override
+			public void onComplete(Task<Void> task) {
+				if (task.isSuccessful()) {
+					source.trySetResult(null);
+				} else {
+					source.trySetException(task.getException());
+				}
+			}
+		});
+		return source.getTask();
+	}
+
+	private synchronized boolean register(PendingOperation pendingOperation) {
+		if (cancelled) {
+			pendingOperation.source.trySetException(new CancellationException("The scope was cancelled"));
+			return false;
+		}
+		pendingOperations.add(pendingOperation);
+		return true;
+	}
+
+	/**
+	 * Fails all the pending operations with a {@link CancellationException} and detaches their listeners. The
+	 * operations registered after the cancellation are failed immediately.
+	 */
+	public void cancel() {
+		List<PendingOperation> operationsToCancel;
+		synchronized (this) {
+			cancelled = true;
+			operationsToCancel = Lists.newArrayList(pendingOperations);
+		}
+		for (PendingOperation each : operationsToCancel) {
+			if (!each.source.getTask().isComplete()) {
+				if (each.query != null) {
+					each.query.removeEventListener(each.listener);
+				}
+				each.source.trySetException(new CancellationException("The scope was cancelled"));
+			}
+		}
+	}
+
+	public synchronized boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Waits until all the operations of the scope are completed. If the timeout of the scope is reached, the pending
+	 * operations are cancelled. This method should not be called from the main thread.
+	 *
+	 * @throws FirebaseDatabaseException if any of the operations failed on the database
+	 */
+	public void awaitAll() {
+		List<Task<?>> tasks = Lists.newArrayList();
+		synchronized (this) {
+			for (PendingOperation each : pendingOperations) {
+				tasks.add(each.source.getTask());
+			}
+		}
+		await(Tasks.whenAll(tasks));
+	}
+
+	/**
+	 * Waits until the task is completed, limited by the timeout of the scope. This method should not be called from
+	 * the main thread.
+	 *
+	 * @param task the task to wait
+	 * @param <R> the result type
+	 * @return the result of the task
+	 * @throws FirebaseDatabaseException if the operation failed on the database
+	 */
+	public <R> R await(Task<R> task) {
+		try {
+			return Tasks.await(task, Math.max(0, deadline - DateUtils.nowMillis()), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException e) {
+			cancel();
+			throw new UnexpectedException("Timeout waiting for the database operations", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			// Continuations wrap the exceptions of their source tasks
+			if (cause instanceof RuntimeExecutionException && cause.getCause() != null) {
+				cause = cause.getCause();
+			}
+			if (cause instanceof FirebaseDatabaseException) {
+				throw (FirebaseDatabaseException)cause;
+			} else if (cause instanceof CancellationException) {
+				throw (CancellationException)cause;
+			}
+			throw new UnexpectedException(cause);
+		} catch (InterruptedException e) {
+			cancel();
+			throw new UnexpectedException(e);
+		}
+	}
+
+	private static class PendingOperation {
+
+		private TaskCompletionSource<?> source;
+		private Query query;
+		private ValueEventListener listener;
+
+		PendingOperation(TaskCompletionSource<?> source, Query query, ValueEventListener listener) {
+			this.source = source;
+			this.query = query;
+			this.listener = listener;
+		}
+	}
+}
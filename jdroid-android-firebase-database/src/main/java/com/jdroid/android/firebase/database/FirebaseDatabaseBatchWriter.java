@@ -0,0 +1,122 @@
+package com.jdroid.android.firebase.database;
+
+import com.google.firebase.database.DatabaseReference;
+import com.jdroid.java.collections.Lists;
+import com.jdroid.java.collections.Maps;
+import com.jdroid.java.domain.Entity;
+import com.jdroid.java.exception.UnexpectedException;
+import com.jdroid.java.utils.LoggerUtils;
+
+import org.slf4j.Logger;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects pushes, sets and deletes of entities under a database reference, and writes them using multi-path
+ * updates. Each batch is sent with a single {@link DatabaseReference#updateChildren(Map, DatabaseReference.CompletionListener)}
+ * call, and all the batches are sent before waiting for their completion.
+ *
+ * @param <T> the entity type
+ */
+public class FirebaseDatabaseBatchWriter<T extends Entity> {
+
+	private static final Logger LOGGER = LoggerUtils.getLogger(FirebaseDatabaseBatchWriter.class);
+
+	public static final int DEFAULT_MAX_BATCH_SIZE = 500;
+
+	private DatabaseReference databaseReference;
+	private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+	private Map<String, Object> pendingUpdates = Maps.newLinkedHashMap();
+
+	public FirebaseDatabaseBatchWriter(DatabaseReference databaseReference) {
+		this.databaseReference = databaseReference;
+	}
+
+	/**
+	 * Adds the item with a new push key. The key is generated locally and set as the item id, so the id field is
+	 * written together with the item.
+	 *
+	 * @param item the item to add
+	 * @return this writer
+	 */
+	public FirebaseDatabaseBatchWriter<T> push(T item) {
+		item.setId(databaseReference.push().getKey());
+		pendingUpdates.put(item.getId(), item);
+		return this;
+	}
+
+	/**
+	 * Writes the item on its id, replacing the stored one. If the item has no id, it is pushed.
+	 *
+	 * @param item the item to write
+	 * @return this writer
+	 */
+	public FirebaseDatabaseBatchWriter<T> set(T item) {
+		if (item.getId() == null) {
+			push(item);
+		} else {
+			pendingUpdates.put(item.getId(), item);
+		}
+		return this;
+	}
+
+	/**
+	 * @param id the id of the item to delete
+	 * @return this writer
+	 */
+	public FirebaseDatabaseBatchWriter<T> delete(String id) {
+		if (id != null) {
+			pendingUpdates.put(id, null);
+		}
+		return this;
+	}
+
+	/**
+	 * Sends all the pending writes and waits until all of them are completed.
+	 *
+	 * @throws FirebaseDatabaseException if any of the batches fails
+	 */
+	public void commit() {
+		if (pendingUpdates.isEmpty()) {
+			return;
+		}
+
+		List<FirebaseDatabaseCompletionListener> listeners = Lists.newArrayList();
+		Map<String, Object> batch = Maps.newHashMap();
+		for (Map.Entry<String, Object> entry : pendingUpdates.entrySet()) {
+			batch.put(entry.getKey(), entry.getValue());
+			if (batch.size() >= maxBatchSize) {
+				listeners.add(send(batch));
+				batch = Maps.newHashMap();
+			}
+		}
+		if (!batch.isEmpty()) {
+			listeners.add(send(batch));
+		}
+		int writesCount = pendingUpdates.size();
+		pendingUpdates.clear();
+
+		for (FirebaseDatabaseCompletionListener listener : listeners) {
+			listener.waitOperation();
+		}
+		LOGGER.info("Written " + writesCount + " items in " + listeners.size() + " batches on path: " + databaseReference.getKey());
+	}
+
+	private FirebaseDatabaseCompletionListener send(Map<String, Object> batch) {
+		FirebaseDatabaseCompletionListener listener = new FirebaseDatabaseCompletionListener();
+		databaseReference.updateChildren(batch, listener);
+		return listener;
+	}
+
+	public int getPendingWritesCount() {
+		return pendingUpdates.size();
+	}
+
+	public void setMaxBatchSize(int maxBatchSize) {
+		if (maxBatchSize <= 0) {
+			throw new UnexpectedException("The max batch size should be greater than zero");
+		}
+		this.maxBatchSize = maxBatchSize;
+	}
+}
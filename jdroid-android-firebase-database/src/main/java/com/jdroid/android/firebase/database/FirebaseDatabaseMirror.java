@@ -0,0 +1,331 @@
+package com.jdroid.android.firebase.database;
+
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+import com.jdroid.java.collections.Lists;
+import com.jdroid.java.collections.Maps;
+import com.jdroid.java.collections.Sets;
+import com.jdroid.java.date.DateUtils;
+import com.jdroid.java.domain.Entity;
+import com.jdroid.java.utils.LoggerUtils;
+
+import org.slf4j.Logger;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory copy of the children of a database path, kept in sync using a persistent {@link ChildEventListener}.
+ * The children can be read by id, and by the value of any of the indexed fields, without network round trips.
+ *
+ * @param <T> the entity type
+ */
+public class FirebaseDatabaseMirror<T extends Entity> {
+
+	private static final Logger LOGGER = LoggerUtils.getLogger(FirebaseDatabaseMirror.class);
+
+	/**
+	 * Order of the keys on the database: the keys which can be parsed as 32-bit integers come first, in ascending
+	 * numeric order, followed by the rest of the keys in lexicographical order.
+	 */
+	static final Comparator<String> KEY_COMPARATOR = new Comparator<String>() {
+
+		@Override
+		public int compare(String key1, String key2) {
+			Integer intKey1 = parseIntegerKey(key1);
+			Integer intKey2 = parseIntegerKey(key2);
+			if (intKey1 != null && intKey2 != null) {
+				return intKey1.compareTo(intKey2);
+			} else if (intKey1 != null) {
+				return -1;
+			} else if (intKey2 != null) {
+				return 1;
+			} else {
+				return key1.compareTo(key2);
+			}
+		}
+	};
+
+	private DatabaseReference databaseReference;
+	private Class<T> entityClass;
+	private List<String> indexedFields;
+
+	// Children snapshots by key, in the same order used by the database
+	private TreeMap<String, DataSnapshot> snapshots = new TreeMap<>(KEY_COMPARATOR);
+	private Map<String, Map<Object, Set<String>>> indexes = Maps.newHashMap();
+
+	private volatile boolean started = false;
+	private volatile boolean synced = false;
+	private volatile Long lastEventTime;
+	private AtomicLong hitsCount = new AtomicLong();
+	private AtomicLong missesCount = new AtomicLong();
+
+	private ChildEventListener childEventListener;
+	private ValueEventListener initialLoadListener;
+
+	public FirebaseDatabaseMirror(DatabaseReference databaseReference, Class<T> entityClass, List<String> indexedFields) {
+		this.databaseReference = databaseReference;
+		this.entityClass = entityClass;
+		this.indexedFields = indexedFields;
+		for (String each : indexedFields) {
+			indexes.put(each, Maps.<Object, Set<String>>newHashMap());
+		}
+	}
+
+	public synchronized void start() {
+		started = true;
+		childEventListener = new ChildEventListener() {
+
+			@Override
+			public void onChildAdded(DataSnapshot dataSnapshot, String previousChildName) {
+				put(dataSnapshot);
+			}
+
+			@Override
+			public void onChildChanged(DataSnapshot dataSnapshot, String previousChildName) {
+				put(dataSnapshot);
+			}
+
+			@Override
+			public void onChildRemoved(DataSnapshot dataSnapshot) {
+				remove(dataSnapshot.getKey());
+			}
+
+			@Override
+			public void onChildMoved(DataSnapshot dataSnapshot, String previousChildName) {
+				// Nothing to do
+			}
+
+			@Override
+			public void onCancelled(DatabaseError databaseError) {
+				onMirrorCancelled(databaseError);
+			}
+		};
+		databaseReference.addChildEventListener(childEventListener);
+
+		// The value event is raised after the child events of the initial data
+		initialLoadListener = new ValueEventListener() {
+
+			@Override
+			public void onDataChange(DataSnapshot dataSnapshot) {
+				lastEventTime = DateUtils.nowMillis();
+				synced = true;
+				LOGGER.info("Mirror synced for path: " + databaseReference.getKey());
+			}
+
+			@Override
+			public void onCancelled(DatabaseError databaseError) {
+				onMirrorCancelled(databaseError);
+			}
+		};
+		databaseReference.addListenerForSingleValueEvent(initialLoadListener);
+	}
+
+	public synchronized void stop() {
+		started = false;
+		if (childEventListener != null) {
+			databaseReference.removeEventListener(childEventListener);
+			childEventListener = null;
+		}
+		if (initialLoadListener != null) {
+			databaseReference.removeEventListener(initialLoadListener);
+			initialLoadListener = null;
+		}
+		synced = false;
+		snapshots.clear();
+		for (Map<Object, Set<String>> index : indexes.values()) {
+			index.clear();
+		}
+	}
+
+	/**
+	 * The listeners are not invoked anymore after a cancellation, so the mirror is reset and can be started again.
+	 */
+	private void onMirrorCancelled(DatabaseError databaseError) {
+		LOGGER.warn("Mirror cancelled for path: " + databaseReference.getKey() + ". " + databaseError.getMessage());
+		stop();
+	}
+
+	private synchronized void put(DataSnapshot dataSnapshot) {
+		removeFromIndexes(dataSnapshot.getKey());
+		snapshots.put(dataSnapshot.getKey(), dataSnapshot);
+		for (String each : indexedFields) {
+			Object value = dataSnapshot.child(each).getValue();
+			if (value != null) {
+				Map<Object, Set<String>> index = indexes.get(each);
+				Set<String> keys = index.get(value);
+				if (keys == null) {
+					keys = Sets.newHashSet();
+					index.put(value, keys);
+				}
+				keys.add(dataSnapshot.getKey());
+			}
+		}
+		lastEventTime = DateUtils.nowMillis();
+	}
+
+	private synchronized void remove(String key) {
+		removeFromIndexes(key);
+		snapshots.remove(key);
+		lastEventTime = DateUtils.nowMillis();
+	}
+
+	private void removeFromIndexes(String key) {
+		DataSnapshot previous = snapshots.get(key);
+		if (previous != null) {
+			for (String each : indexedFields) {
+				Object value = previous.child(each).getValue();
+				if (value != null) {
+					Map<Object, Set<String>> index = indexes.get(each);
+					Set<String> keys = index.get(value);
+					if (keys != null) {
+						keys.remove(key);
+						if (keys.isEmpty()) {
+							index.remove(value);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return whether the mirror is listening to the changes. It is false after a cancellation.
+	 */
+	public boolean isStarted() {
+		return started;
+	}
+
+	/**
+	 * @return whether the initial data was loaded and the mirror is listening to the changes
+	 */
+	public boolean isSynced() {
+		return synced;
+	}
+
+	/**
+	 * @param fieldName the field name
+	 * @return whether the mirror can be queried by the given field
+	 */
+	public boolean isIndexed(String fieldName) {
+		return indexes.containsKey(fieldName);
+	}
+
+	// The snapshots are immutable, so they are collected while holding the lock and deserialized after releasing it,
+	// without blocking the child events delivered on the main thread
+
+	public T get(String id) {
+		DataSnapshot dataSnapshot;
+		synchronized (this) {
+			dataSnapshot = snapshots.get(id);
+		}
+		return dataSnapshot != null ? dataSnapshot.getValue(entityClass) : null;
+	}
+
+	public List<T> getAll() {
+		List<DataSnapshot> dataSnapshots;
+		synchronized (this) {
+			dataSnapshots = Lists.newArrayList(snapshots.values());
+		}
+		return toEntities(dataSnapshots);
+	}
+
+	public List<T> getByIds(Collection<String> ids) {
+		return toEntities(getSnapshots(ids));
+	}
+
+	public List<T> getByField(String fieldName, Object value) {
+		// The database returns all the integer numbers as longs
+		if (value instanceof Integer) {
+			value = ((Integer)value).longValue();
+		}
+		List<DataSnapshot> dataSnapshots;
+		synchronized (this) {
+			Set<String> keys = indexes.get(fieldName).get(value);
+			dataSnapshots = keys != null ? getSnapshots(keys) : Lists.<DataSnapshot>newArrayList();
+		}
+		return toEntities(dataSnapshots);
+	}
+
+	public synchronized Long getSize() {
+		return (long)snapshots.size();
+	}
+
+	public T getFirst() {
+		DataSnapshot dataSnapshot;
+		synchronized (this) {
+			dataSnapshot = snapshots.isEmpty() ? null : snapshots.firstEntry().getValue();
+		}
+		return dataSnapshot != null ? dataSnapshot.getValue(entityClass) : null;
+	}
+
+	private synchronized List<DataSnapshot> getSnapshots(Collection<String> keys) {
+		List<DataSnapshot> dataSnapshots = Lists.newArrayList();
+		for (String each : keys) {
+			DataSnapshot dataSnapshot = snapshots.get(each);
+			if (dataSnapshot != null) {
+				dataSnapshots.add(dataSnapshot);
+			}
+		}
+		return dataSnapshots;
+	}
+
+	private List<T> toEntities(List<DataSnapshot> dataSnapshots) {
+		List<T> results = Lists.newArrayList();
+		for (DataSnapshot each : dataSnapshots) {
+			results.add(each.getValue(entityClass));
+		}
+		return results;
+	}
+
+	private static Integer parseIntegerKey(String key) {
+		try {
+			int value = Integer.parseInt(key);
+			// Only the canonical representations, without leading zeros nor signs, are ordered as numbers
+			return String.valueOf(value).equals(key) ? value : null;
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	void onHit() {
+		hitsCount.incrementAndGet();
+	}
+
+	void onMiss() {
+		missesCount.incrementAndGet();
+	}
+
+	public long getHitsCount() {
+		return hitsCount.get();
+	}
+
+	public long getMissesCount() {
+		return missesCount.get();
+	}
+
+	/**
+	 * @return the ratio of reads served by the mirror, between 0 and 1
+	 */
+	public double getHitRate() {
+		long hits = hitsCount.get();
+		long total = hits + missesCount.get();
+		return total > 0 ? (double)hits / total : 0;
+	}
+
+	/**
+	 * @return the milliseconds since the last change received from the database, or null if nothing was received yet
+	 */
+	public Long getStaleness() {
+		Long time = lastEventTime;
+		return time != null ? DateUtils.nowMillis() - time : null;
+	}
+}
@@ -1,11 +1,17 @@
 package com.jdroid.android.firebase.database;
 
+import android.support.annotation.NonNull;
+
+import com.google.android.gms.tasks.Continuation;
+import com.google.android.gms.tasks.Task;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.Query;
 import com.jdroid.android.firebase.database.auth.FirebaseAuthenticationStrategy;
 import com.jdroid.java.collections.Lists;
+import com.jdroid.java.collections.Maps;
+import com.jdroid.java.concurrent.LowPriorityThreadFactory;
 import com.jdroid.java.domain.Entity;
 import com.jdroid.java.exception.UnexpectedException;
 import com.jdroid.java.repository.Repository;
@@ -14,15 +20,21 @@ import com.jdroid.java.utils.LoggerUtils;
 import org.slf4j.Logger;
 
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 public abstract class FirebaseDatabaseRepository<T extends Entity> implements Repository<T> {
 
 	private static final Logger LOGGER = LoggerUtils.getLogger(FirebaseDatabaseRepository.class);
 
+	// Shared by all the repositories, to deserialize the results of the async reads out of the main thread
+	private static final Executor ASYNC_READS_EXECUTOR = Executors.newSingleThreadExecutor(new LowPriorityThreadFactory("firebase-database"));
+
 	private FirebaseAuthenticationStrategy firebaseAuthenticationStrategy;
+	private FirebaseDatabaseMirror<T> mirror;
 
 	public FirebaseDatabaseRepository() {
 		firebaseAuthenticationStrategy = createFirebaseAuthenticationStrategy();
@@ -55,8 +67,65 @@ public abstract class FirebaseDatabaseRepository<T extends Entity> implements Re
 		return databaseReference;
 	}
 
+	/**
+	 * @return whether the reads should be served from a live-synced in-memory copy of the path
+	 */
+	protected boolean isMirrorEnabled() {
+		return false;
+	}
+
+	/**
+	 * @return the fields which can be queried on the mirror using {@link #getByField(String, Object...)}
+	 */
+	protected List<String> getMirrorIndexedFields() {
+		return Lists.newArrayList();
+	}
+
+	/**
+	 * Returns the mirror of the path, starting it if needed. A mirror reset by a cancellation is started again.
+	 *
+	 * @return the mirror, or null if it is not enabled
+	 */
+	public synchronized FirebaseDatabaseMirror<T> getMirror() {
+		if (mirror == null && isMirrorEnabled()) {
+			mirror = new FirebaseDatabaseMirror<>(createDatabaseReference(), getEntityClass(), getMirrorIndexedFields());
+			mirror.start();
+		} else if (mirror != null && !mirror.isStarted()) {
+			mirror.start();
+		}
+		return mirror;
+	}
+
+	/**
+	 * Detaches the mirror listeners and discards its data.
+	 */
+	public synchronized void stopMirror() {
+		if (mirror != null) {
+			mirror.stop();
+			mirror = null;
+		}
+	}
+
+	private FirebaseDatabaseMirror<T> getSyncedMirror(String fieldName) {
+		FirebaseDatabaseMirror<T> currentMirror = getMirror();
+		if (currentMirror != null && (fieldName == null || currentMirror.isIndexed(fieldName))) {
+			if (currentMirror.isSynced()) {
+				currentMirror.onHit();
+				return currentMirror;
+			} else {
+				currentMirror.onMiss();
+			}
+		}
+		return null;
+	}
+
 	@Override
 	public T get(String id) {
+		FirebaseDatabaseMirror<T> syncedMirror = getSyncedMirror(null);
+		if (syncedMirror != null) {
+			return syncedMirror.get(id);
+		}
+
 		DatabaseReference databaseReference = createDatabaseReference();
 		databaseReference = databaseReference.child(id);
 		FirebaseDatabaseValueEventListener listener = new FirebaseDatabaseValueEventListener();
@@ -73,38 +142,32 @@ public abstract class FirebaseDatabaseRepository<T extends Entity> implements Re
 		if (item.getId() != null) {
 			databaseReference = databaseReference.child(item.getId());
 		} else {
+			// The push key is generated locally, so the id field is stored together with the item
 			databaseReference = databaseReference.push();
+			item.setId(databaseReference.getKey());
 		}
 
 		FirebaseDatabaseCompletionListener listener = new FirebaseDatabaseCompletionListener();
 		databaseReference.setValue(item, listener);
 
 		listener.waitOperation();
-		if (item.getId() == null) {
-			// Add the id field
-			addIdField(databaseReference.getKey());
-		}
-		item.setId(databaseReference.getKey());
 		LOGGER.info("Stored object in database: " + item);
 	}
 
-	private void addIdField(String id) {
-		DatabaseReference databaseReference = createDatabaseReference();
-		databaseReference = databaseReference.child(id);
-
-		Map<String, Object> map = new HashMap<>();
-		map.put("id", id);
-
-		FirebaseDatabaseCompletionListener listener = new FirebaseDatabaseCompletionListener();
-		databaseReference.updateChildren(map, listener);
-		listener.waitOperation();
+	/**
+	 * @return a writer to send several pushes, sets and deletes on the repository path using multi-path updates
+	 */
+	public FirebaseDatabaseBatchWriter<T> createBatchWriter() {
+		return new FirebaseDatabaseBatchWriter<>(createDatabaseReference());
 	}
 
 	@Override
 	public void addAll(Collection<T> items) {
+		FirebaseDatabaseBatchWriter<T> batchWriter = createBatchWriter();
 		for(T each : items) {
-			add(each);
+			batchWriter.set(each);
 		}
+		batchWriter.commit();
 	}
 
 	@Override
@@ -117,15 +180,29 @@ public abstract class FirebaseDatabaseRepository<T extends Entity> implements Re
 
 	@Override
 	public List<T> getByField(String fieldName, Object... values) {
-		DatabaseReference databaseReference = createDatabaseReference();
-		Query query = databaseReference.orderByChild(fieldName);
-
 		if (values == null) {
 			throw new UnexpectedException("Null value type not supported");
 		} else if (values.length > 1) {
 			throw new UnexpectedException("Just one value is supported");
 		}
 		Object value = values[0];
+
+		FirebaseDatabaseMirror<T> syncedMirror = getSyncedMirror(fieldName);
+		if (syncedMirror != null) {
+			return syncedMirror.getByField(fieldName, value);
+		}
+
+		FirebaseDatabaseValueEventListener listener = new FirebaseDatabaseValueEventListener();
+		createFieldQuery(fieldName, value).addListenerForSingleValueEvent(listener);
+		listener.waitOperation();
+		List<T> results = toEntities(listener.getDataSnapshot());
+		LOGGER.info("Retrieved objects [" + results.size() + "] from database of path: " + getPath() + " field: " + fieldName);
+		return results;
+	}
+
+	private Query createFieldQuery(String fieldName, Object value) {
+		DatabaseReference databaseReference = createDatabaseReference();
+		Query query = databaseReference.orderByChild(fieldName);
 		if (value instanceof String) {
 			query = query.equalTo((String)value);
 		} else if (value instanceof Long) {
@@ -139,15 +216,14 @@ public abstract class FirebaseDatabaseRepository<T extends Entity> implements Re
 		} else {
 			throw new UnexpectedException("Value type not supported");
 		}
+		return query;
+	}
 
-		FirebaseDatabaseValueEventListener listener = new FirebaseDatabaseValueEventListener();
-		query.addListenerForSingleValueEvent(listener);
-		listener.waitOperation();
+	private List<T> toEntities(DataSnapshot dataSnapshot) {
 		List<T> results = Lists.newArrayList();
-		for (DataSnapshot eachSnapshot: listener.getDataSnapshot().getChildren()) {
+		for (DataSnapshot eachSnapshot: dataSnapshot.getChildren()) {
 			results.add(eachSnapshot.getValue(getEntityClass()));
 		}
-		LOGGER.info("Retrieved objects [" + results.size() + "] from database of path: " + getPath() + " field: " + fieldName);
 		return results;
 	}
 	
@@ -163,32 +239,55 @@ public abstract class FirebaseDatabaseRepository<T extends Entity> implements Re
 
 	@Override
 	public List<T> getAll() {
+		FirebaseDatabaseMirror<T> syncedMirror = getSyncedMirror(null);
+		if (syncedMirror != null) {
+			return syncedMirror.getAll();
+		}
+
 		DatabaseReference databaseReference = createDatabaseReference();
 		FirebaseDatabaseValueEventListener listener = new FirebaseDatabaseValueEventListener();
 		databaseReference.addListenerForSingleValueEvent(listener);
 		listener.waitOperation();
-		List<T> results = Lists.newArrayList();
-		for (DataSnapshot eachSnapshot: listener.getDataSnapshot().getChildren()) {
-			results.add(eachSnapshot.getValue(getEntityClass()));
-		}
+		List<T> results = toEntities(listener.getDataSnapshot());
 		LOGGER.info("Retrieved all objects [" + results.size() + "] from path: " + getPath());
 		return results;
 	}
 
 	@Override
 	public List<T> getByIds(List<String> ids) {
+		FirebaseDatabaseMirror<T> syncedMirror = getSyncedMirror(null);
+		if (syncedMirror != null) {
+			return syncedMirror.getByIds(ids);
+		}
+
+		// Each child is requested by key, and all the requests are sent before waiting for the responses
 		DatabaseReference databaseReference = createDatabaseReference();
-		FirebaseDatabaseValueEventListener listener = new FirebaseDatabaseValueEventListener();
-		databaseReference.addListenerForSingleValueEvent(listener);
-		listener.waitOperation();
+		Map<String, FirebaseDatabaseValueEventListener> listeners = Maps.newLinkedHashMap();
+		for (String id : ids) {
+			if (id != null && !listeners.containsKey(id)) {
+				FirebaseDatabaseValueEventListener listener = new FirebaseDatabaseValueEventListener();
+				databaseReference.child(id).addListenerForSingleValueEvent(listener);
+				listeners.put(id, listener);
+			}
+		}
+
+		Map<String, T> resultsById = Maps.newHashMap();
+		for (Map.Entry<String, FirebaseDatabaseValueEventListener> entry : listeners.entrySet()) {
+			entry.getValue().waitOperation();
+			T each = entry.getValue().getDataSnapshot().getValue(getEntityClass());
+			if (each != null) {
+				resultsById.put(entry.getKey(), each);
+			}
+		}
+
 		List<T> results = Lists.newArrayList();
-		for (DataSnapshot eachSnapshot: listener.getDataSnapshot().getChildren()) {
-			T each = eachSnapshot.getValue(getEntityClass());
-			if (ids.contains(each.getId())) {
+		for (String id : ids) {
+			T each = resultsById.remove(id);
+			if (each != null) {
 				results.add(each);
 			}
 		}
-		LOGGER.info("Retrieved all objects [" + results.size() + "] from path: " + getPath() + " and ids: " + ids);
+		LOGGER.info("Retrieved objects [" + results.size() + "] from path: " + getPath() + " and ids: " + ids);
 		return results;
 	}
 
@@ -205,9 +304,11 @@ public abstract class FirebaseDatabaseRepository<T extends Entity> implements Re
 
 	@Override
 	public void removeAll(Collection<T> items) {
+		FirebaseDatabaseBatchWriter<T> batchWriter = createBatchWriter();
 		for(T each : items) {
-			remove(each);
+			batchWriter.delete(each.getId());
 		}
+		batchWriter.commit();
 	}
 
 	@Override
@@ -231,11 +332,21 @@ public abstract class FirebaseDatabaseRepository<T extends Entity> implements Re
 
 	@Override
 	public Boolean isEmpty() {
-		return getSize() == 0;
+		FirebaseDatabaseMirror<T> syncedMirror = getSyncedMirror(null);
+		if (syncedMirror != null) {
+			return syncedMirror.getSize() == 0;
+		}
+		return getFirstChild() == null;
 	}
 
 	@Override
 	public Long getSize() {
+		FirebaseDatabaseMirror<T> syncedMirror = getSyncedMirror(null);
+		if (syncedMirror != null) {
+			return syncedMirror.getSize();
+		}
+
+		// The Android SDK doesn't support shallow queries, so the children are downloaded to count them
 		DatabaseReference databaseReference = createDatabaseReference();
 		FirebaseDatabaseValueEventListener listener = new FirebaseDatabaseValueEventListener();
 		databaseReference.addListenerForSingleValueEvent(listener);
@@ -245,17 +356,121 @@ public abstract class FirebaseDatabaseRepository<T extends Entity> implements Re
 
 	@Override
 	public void replaceAll(Collection<T> items) {
+		FirebaseDatabaseBatchWriter<T> batchWriter = createBatchWriter();
 		for(T each : items) {
-			update(each);
+			if (each.getId() == null) {
+				throw new UnexpectedException("Item with null id can not be updated");
+			}
+			batchWriter.set(each);
 		}
+		batchWriter.commit();
 	}
 
 	@Override
 	public T getUniqueInstance() {
-		List<T> results = getAll();
-		if (!results.isEmpty()) {
-			return results.get(0);
+		FirebaseDatabaseMirror<T> syncedMirror = getSyncedMirror(null);
+		if (syncedMirror != null) {
+			return syncedMirror.getFirst();
 		}
-		return null;
+		DataSnapshot dataSnapshot = getFirstChild();
+		return dataSnapshot != null ? dataSnapshot.getValue(getEntityClass()) : null;
+	}
+
+	private DataSnapshot getFirstChild() {
+		DatabaseReference databaseReference = createDatabaseReference();
+		FirebaseDatabaseValueEventListener listener = new FirebaseDatabaseValueEventListener();
+		databaseReference.orderByKey().limitToFirst(1).addListenerForSingleValueEvent(listener);
+		listener.waitOperation();
+		Iterator<DataSnapshot> iterator = listener.getDataSnapshot().getChildren().iterator();
+		return iterator.hasNext() ? iterator.next() : null;
+	}
+
+	/**
+	 * @return the executor where the results of the async reads are deserialized. By default it is a low priority
+	 * background thread shared by all the repositories.
+	 */
+	protected Executor getAsyncReadsExecutor() {
+		return ASYNC_READS_EXECUTOR;
+	}
+
+	/**
+	 * Reads the item without blocking the calling thread.
+	 *
+	 * @param scope the scope which limits the time and can cancel the operation
+	 * @param id the item id
+	 * @return the task of the read, with a null result if the item doesn't exist
+	 */
+	public Task<T> getAsync(FirebaseDatabaseAsyncScope scope, String id) {
+		return scope.read(createDatabaseReference().child(id)).continueWith(getAsyncReadsExecutor(), new Continuation<DataSnapshot, T>() {
+
+			@Override
+			public T then(@NonNull Task<DataSnapshot> task) throws Exception {
+				return task.getResult(FirebaseDatabaseException.class).getValue(getEntityClass());
+			}
+		});
+	}
+
+	/**
+	 * Reads the items with the given field value without blocking the calling thread.
+	 *
+	 * @param scope the scope which limits the time and can cancel the operation
+	 * @param fieldName the field name
+	 * @param value the field value
+	 * @return the task of the query
+	 */
+	public Task<List<T>> getByFieldAsync(FirebaseDatabaseAsyncScope scope, String fieldName, Object value) {
+		return scope.read(createFieldQuery(fieldName, value)).continueWith(getAsyncReadsExecutor(), new Continuation<DataSnapshot, List<T>>() {
+
+			@Override
+			public List<T> then(@NonNull Task<DataSnapshot> task) throws Exception {
+				return toEntities(task.getResult(FirebaseDatabaseException.class));
+			}
+		});
+	}
+
+	/**
+	 * Reads all the items without blocking the calling thread.
+	 *
+	 * @param scope the scope which limits the time and can cancel the operation
+	 * @return the task of the read
+	 */
+	public Task<List<T>> getAllAsync(FirebaseDatabaseAsyncScope scope) {
+		return scope.read(createDatabaseReference()).continueWith(getAsyncReadsExecutor(), new Continuation<DataSnapshot, List<T>>() {
+
+			@Override
+			public List<T> then(@NonNull Task<DataSnapshot> task) throws Exception {
+				return toEntities(task.getResult(FirebaseDatabaseException.class));
+			}
+		});
+	}
+
+	/**
+	 * Stores the item without blocking the calling thread. If the item has no id, a push key is generated and set as
+	 * its id before sending the write.
+	 *
+	 * @param scope the scope which limits the time and can cancel the operation
+	 * @param item the item to store
+	 * @return the task of the write
+	 */
+	public Task<Void> addAsync(FirebaseDatabaseAsyncScope scope, T item) {
+		DatabaseReference databaseReference = createDatabaseReference();
+		if (item.getId() != null) {
+			databaseReference = databaseReference.child(item.getId());
+		} else {
+			databaseReference = databaseReference.push();
+			item.setId(databaseReference.getKey());
+		}
+		return scope.write(databaseReference.setValue(item));
+	}
+
+	/**
+	 * Removes the item without blocking the calling thread.
+	 *
+	 * @param scope the scope which limits the time and can cancel the operation
+	 * @param id the item id
+	 * @return the task of the delete
+	 */
+	public Task<Void> removeAsync(FirebaseDatabaseAsyncScope scope, String id) {
+		return scope.write(createDatabaseReference().child(id).removeValue());
 	}
 }
@@ -15,6 +15,8 @@ import com.jdroid.android.activity.AbstractFragmentActivity;
 import com.jdroid.android.activity.ActivityHelper;
 import com.jdroid.android.application.AbstractApplication;
 import com.jdroid.android.application.AppModule;
+import com.jdroid.android.application.AppModuleFactory;
+import com.jdroid.android.application.AppModuleRegistry;
 import com.jdroid.android.context.AppContext;
 import com.jdroid.android.debug.DebugContext;
 import com.jdroid.android.firebase.admob.AdMobAppModule;
@@ -37,6 +39,7 @@ import com.jdroid.android.sample.ui.AndroidFragmentHelper;
 import com.jdroid.android.sample.ui.about.AndroidAboutAppModule;
 import com.jdroid.android.sample.ui.google.admob.SampleAdMobAppContext;
 import com.jdroid.android.sample.ui.google.inappbilling.AndroidInAppBillingAppModule;
+import com.jdroid.android.sample.ui.google.inappbilling.GoogleInAppBillingActivity;
 import com.jdroid.android.sample.ui.home.HomeActivity;
 import com.jdroid.android.sample.ui.home.HomeItem;
 import com.jdroid.android.sample.ui.sqlite.SampleSQLiteEntity;
@@ -166,9 +169,19 @@ public class AndroidApplication extends AbstractApplication {
 		appModulesMap.put(AbstractFcmAppModule.MODULE_NAME, new AndroidFcmAppModule());
 		appModulesMap.put(AboutAppModule.MODULE_NAME, new AndroidAboutAppModule());
 		appModulesMap.put(AppShortcutsAppModule.MODULE_NAME, new AppShortcutsAppModule());
-		appModulesMap.put(InAppBillingAppModule.MODULE_NAME, new AndroidInAppBillingAppModule());
-		
-		AndroidInAppBillingAppModule.get().setInAppBillingBroadcastListener(new SampleInAppBillingBroadcastListener());
+	}
+	
+	@Override
+	protected void initAppModuleRegistry(AppModuleRegistry appModuleRegistry) {
+		appModuleRegistry.register(InAppBillingAppModule.MODULE_NAME, new AppModuleFactory() {
+			
+			@Override
+			public AppModule createAppModule() {
+				AndroidInAppBillingAppModule inAppBillingAppModule = new AndroidInAppBillingAppModule();
+				inAppBillingAppModule.setInAppBillingBroadcastListener(new SampleInAppBillingBroadcastListener());
+				return inAppBillingAppModule;
+			}
+		}).triggeredByActivity(GoogleInAppBillingActivity.class);
 	}
 
 	@Override